@@ -0,0 +1,52 @@
+package org.example.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// IdService's uuid7 format against UUID.randomUUID(), from 8 threads at once as during a bulk import
+// next to interactive inserts. Vary the load with -t, e.g. -t 1 for the uncontended cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class IdServiceBenchmark {
+
+    @Param({"uuid7", "random"})
+    public String format;
+
+    private IdService idService;
+
+    @Setup
+    public void setUp() {
+        idService = new IdService(format);
+    }
+
+    @Benchmark
+    public String generateId() {
+        return idService.generateId();
+    }
+
+    // what FilmsService.saveFilms asks for per batch
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public List<String> generateIds() {
+        return idService.generateIds(100);
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.backend.service;
+
+import org.example.backend.model.GENRE;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// OmdbNormalizer against the converters ClientApiService used before it, on typical OMDb values.
+// Run with -prof gc to compare allocations as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OmdbNormalizerBenchmark {
+
+    @Param({"known", "unknown"})
+    public String genres;
+
+    private String genre;
+    private final String runtime = "136 min";
+    private final String released = "31 Mar 1999";
+    private final String rating = "8.7";
+
+    @Setup
+    public void setUp() {
+        // "unknown" puts OMDb genres we have no enum value for first, the slow path for valueOf
+        genre = genres.equals("known") ? "Action, Sci-Fi" : "Crime, Mystery, Sci-Fi";
+    }
+
+    @Benchmark
+    public void normalizer(Blackhole blackhole) {
+        blackhole.consume(OmdbNormalizer.parseRuntime(runtime));
+        blackhole.consume(OmdbNormalizer.parseReleased(released));
+        blackhole.consume(OmdbNormalizer.parseRating(rating));
+        blackhole.consume(OmdbNormalizer.parseGenre(genre));
+    }
+
+    @Benchmark
+    public void previous(Blackhole blackhole) {
+        blackhole.consume(Previous.safeParseDuration(runtime));
+        blackhole.consume(Previous.parseReleased(released));
+        blackhole.consume(Previous.safeParseRated(rating));
+        blackhole.consume(Previous.fromString(genre));
+    }
+
+    @Benchmark
+    public LocalDate normalizerReleased() {
+        return OmdbNormalizer.parseReleased(released);
+    }
+
+    @Benchmark
+    public LocalDate previousReleased() {
+        return Previous.parseReleased(released);
+    }
+
+    @Benchmark
+    public GENRE normalizerGenre() {
+        return OmdbNormalizer.parseGenre(genre);
+    }
+
+    @Benchmark
+    public GENRE previousGenre() {
+        return Previous.fromString(genre);
+    }
+
+    // the converters as they were in ClientApiService
+    static final class Previous {
+
+        static Integer safeParseDuration(String runtime) {
+            if (runtime == null) {
+                return 0;
+            }
+            String digits = runtime.replaceAll("\\D+", "");
+            if (digits.isEmpty()) {
+                return 0;
+            }
+            return Integer.parseInt(digits);
+        }
+
+        static LocalDate parseReleased(String released) {
+            if (released == null || released.isBlank()) {
+                throw new IllegalArgumentException("Released date cannot be null or blank");
+            }
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
+            return LocalDate.parse(released, formatter);
+        }
+
+        static GENRE fromString(String genres) {
+            if (genres == null || genres.isBlank()) {
+                return null;
+            }
+            for (String part : genres.split(",")) {
+                String normalized = part.trim().toUpperCase().replace("-", "_").replace(" ", "_");
+                try {
+                    return GENRE.valueOf(normalized);
+                } catch (IllegalArgumentException e) {
+                    //
+                }
+            }
+            return null;
+        }
+
+        static Double safeParseRated(String rating) {
+            try {
+                return rating != null && !rating.equalsIgnoreCase("N/A")
+                        ? Double.parseDouble(rating)
+                        : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,30 +1,83 @@
 package org.example.backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.example.backend.model.*;
 import org.example.backend.service.ClientApiService;
 import org.example.backend.service.FilmsService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 @RestController
 @RequestMapping("/api")
 public class FilmController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int NDJSON_FLUSH_EVERY = 100;
+    // clients may keep a copy but must revalidate it with the ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final FilmsService filmsService;
     private final ClientApiService clientApiService;
+    private final ObjectMapper objectMapper;
 
     public FilmController(FilmsService filmsService,
-                          ClientApiService clientApiService) {
+                          ClientApiService clientApiService,
+                          ObjectMapper objectMapper) {
         this.filmsService = filmsService;
         this.clientApiService = clientApiService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/films")
-    public List<Film> getFilms() {
-        return filmsService.getAllFilms();
+    public ResponseEntity<List<? extends FilmProjection>> getFilms(@RequestParam(required = false) String view,
+                                                                   WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        if (catalogNotModified(request, "json")) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(filmsService.getAllFilms(filmView));
+    }
+
+    @GetMapping(value = "/films", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(@RequestParam(required = false) String view,
+                                                             WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        if (catalogNotModified(request, "ndjson")) {
+            return null;
+        }
+        return ndjson(filmsService.streamAllFilms(filmView.type()));
+    }
+
+    @GetMapping(value = "/films", params = "limit")
+    public ResponseEntity<FilmPage<? extends FilmProjection>> getFilmsPage(@RequestParam int limit,
+                                                                           @RequestParam(required = false) String after,
+                                                                           @RequestParam(required = false) String view,
+                                                                           WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        if (catalogNotModified(request, "json")) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE)
+                .body(filmsService.getFilmsPage(after, limit, filmView.type()));
     }
 
     @PostMapping("/films")
@@ -32,49 +85,219 @@ public class FilmController {
         return new ResponseEntity<>(filmsService.addFilm(filmDTO), HttpStatus.CREATED);
     }
 
+    // per-film results in the body; a film that fails does not fail the request
+    @PostMapping("/films/batch")
+    public ResponseEntity<FilmBatchResult> saveFilms(@RequestBody List<FilmDTO> filmDTOs,
+                                                     @RequestParam(defaultValue = "false") boolean upsert) {
+        return ResponseEntity.ok(filmsService.saveFilms(filmDTOs, upsert));
+    }
+
     @DeleteMapping("/films/{id}")
     public ResponseEntity<Void> deleteFilm(@PathVariable String id) {
         filmsService.deleteFilmById(id);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping(value = "/films", params = "ids")
+    public ResponseEntity<FilmBulkResult> deleteFilms(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(filmsService.deleteFilms(ids));
+    }
+
+    // same parameters as GET /films/filter; at least one criterion is required
+    @DeleteMapping("/films/filter")
+    public ResponseEntity<FilmBulkResult> deleteFilmsByFilter(@ModelAttribute FilmFilter filter) {
+        return ResponseEntity.ok(filmsService.deleteFilms(filter));
+    }
+
+    // the non-null fields of the body are set on every film, e.g. {"genre": "DRAMA"}
+    @PatchMapping(value = "/films", params = "ids")
+    public ResponseEntity<FilmBulkResult> updateFilms(@RequestParam List<String> ids, @RequestBody FilmDTO changes) {
+        return ResponseEntity.ok(filmsService.updateFilms(ids, changes));
+    }
+
+    @PatchMapping("/films/filter")
+    public ResponseEntity<FilmBulkResult> updateFilmsByFilter(@ModelAttribute FilmFilter filter,
+                                                              @RequestBody FilmDTO changes) {
+        return ResponseEntity.ok(filmsService.updateFilms(filter, changes));
+    }
+
     @GetMapping("/films/{id}")
-    public ResponseEntity<Film> getFilmById(@PathVariable String id) {
-        Film film = filmsService.getFilmById(id);
-        return ResponseEntity.ok(film);
+    public ResponseEntity<FilmProjection> getFilmById(@PathVariable String id,
+                                                      @RequestParam(required = false) String view,
+                                                      WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        // validators come from a tiny projection, so a 304 never loads the document
+        FilmStamp stamp = filmsService.getFilmStamp(id).orElse(null);
+        if (stamp != null && stamp.version() != null && stamp.updatedAt() != null
+                && request.checkNotModified(filmEtag(stamp, filmView), stamp.updatedAt().toEpochMilli())) {
+            return null;
+        }
+        FilmProjection film = filmsService.getFilmById(id, filmView);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(film);
     }
 
+    // If-Match takes the ETag from GET /films/{id}; a film changed since then answers 409
     @PutMapping("/films/{id}")
-    public ResponseEntity<Film> updateFilm(@PathVariable String id, @RequestBody FilmDTO filmDTO) {
-        Film updatedFilm = filmsService.updateFilm(id, filmDTO);
-        return ResponseEntity.ok(updatedFilm);
+    public ResponseEntity<Film> updateFilm(@PathVariable String id, @RequestBody FilmDTO filmDTO,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        Film updatedFilm = filmsService.updateFilm(id, filmDTO, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(String.valueOf(updatedFilm.version())).body(updatedFilm);
     }
 
 
     @GetMapping("/films/filter")
-    public ResponseEntity<List<Film>> getFilmsByFilter(@RequestParam(required = false) Integer year,
-                                                       @RequestParam(required = false) String genre,
-                                                       @RequestParam(required = false) Double rate) {
-      List<Film> films = filmsService.getFilmsByFilter(year, genre, rate);
-      return ResponseEntity.ok(films);
+    public ResponseEntity<List<? extends FilmProjection>> getFilmsByFilter(@ModelAttribute FilmFilter filter,
+                                                                           @RequestParam(required = false) String view,
+                                                                           WebRequest request) {
+      FilmView filmView = FilmView.parse(view);
+      if (catalogNotModified(request, "json")) {
+          return null;
+      }
+      List<? extends FilmProjection> films = filmsService.getFilmsByFilter(filter, filmView.type());
+      return ResponseEntity.ok().cacheControl(REVALIDATE).body(films);
+    }
+
+    @GetMapping(value = "/films/filter", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilmsByFilter(@ModelAttribute FilmFilter filter,
+                                                                     @RequestParam(required = false) String view,
+                                                                     WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        if (catalogNotModified(request, "ndjson")) {
+            return null;
+        }
+        return ndjson(filmsService.streamFilmsByFilter(filter, filmView.type()));
+    }
+
+    @GetMapping(value = "/films/filter", params = "limit")
+    public ResponseEntity<FilmPage<? extends FilmProjection>> getFilmsByFilterPage(@ModelAttribute FilmFilter filter,
+                                                                                   @RequestParam int limit,
+                                                                                   @RequestParam(required = false) String after,
+                                                                                   @RequestParam(required = false) String view,
+                                                                                   WebRequest request) {
+        FilmView filmView = FilmView.parse(view);
+        if (catalogNotModified(request, "json")) {
+            return null;
+        }
+        FilmPage<? extends FilmProjection> page = filmsService.getFilmsByFilterPage(filter, after, limit,
+                filmView.type());
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(page);
+    }
+
+    @GetMapping("/films/facets")
+    public ResponseEntity<FilmFacets> getFacets(@ModelAttribute FilmFilter filter, WebRequest request) {
+        if (catalogNotModified(request, "json")) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(filmsService.getFacets(filter));
+    }
+
+    // what Mongo would be asked for these parameters, to check index usage against
+    @GetMapping("/films/filter/shape")
+    public ResponseEntity<FilmQueryShape> getFilterShape(@ModelAttribute FilmFilter filter,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(filmsService.getFilterShape(filter, after, limit));
     }
 
     @GetMapping("/homepage_images")
-    public ResponseEntity<List<String>> getHomepageImages() {
-        List<String> images = filmsService.getHomepageImages();
-        return ResponseEntity.ok(images);
+    public ResponseEntity<List<String>> getHomepageImages(WebRequest request) {
+        HomepageImages images = filmsService.getHomepageSnapshot();
+        if (request.checkNotModified(images.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(images.posters());
     }
 
     @GetMapping("/search")
     public ResponseEntity<SearchResponse> getListOfInfo(@RequestParam String title) {
-        SearchResponse response = clientApiService.getListOfChosenFilmByName(title);
-                return ResponseEntity.ok(response);
+        OmdbResult<SearchResponse> response = clientApiService.searchFilms(title);
+                return omdb(response);
     }
 
     @GetMapping("/search/{imdbID}")
     public ResponseEntity<FilmDTO> getFilmByImdbID(@PathVariable String imdbID) {
-        FilmDTO filmFromClientApi = clientApiService.getMovieById(imdbID);
-        return ResponseEntity.ok(filmFromClientApi);
+        OmdbResult<FilmDTO> filmFromClientApi = clientApiService.findMovie(imdbID, OmdbPriority.INTERACTIVE);
+        return omdb(filmFromClientApi);
+    }
+
+    // a stale answer is still served, flagged so the client can say it may be out of date
+    private static <T> ResponseEntity<T> omdb(OmdbResult<T> result) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.stale()) {
+            response.header(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return response.body(result.value());
+    }
+
+    // collection responses change only when the catalog version does;
+    // the query parameters and format are folded in so each variant has its own tag
+    private boolean catalogNotModified(WebRequest request, String format) {
+        CatalogVersion version = filmsService.getCatalogVersion();
+        String etag = "\"" + version.version() + "-" + variantHash(request, format) + "\"";
+        return request.checkNotModified(etag, version.updatedAt().toEpochMilli());
+    }
+
+    private static String variantHash(WebRequest request, String format) {
+        StringBuilder variant = new StringBuilder(format);
+        for (Map.Entry<String, String[]> param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            variant.append('&').append(param.getKey()).append('=').append(Arrays.toString(param.getValue()));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(variant.toString().getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    // the version in a film ETag of any view; "*" only asks for the film to exist
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Invalid If-Match: " + ifMatch);
+        }
+        tag = tag.substring(1, tag.length() - 1);
+        int dash = tag.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? tag : tag.substring(0, dash));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match: " + ifMatch);
+        }
+    }
+
+    private static String filmEtag(FilmStamp stamp, FilmView view) {
+        return view == FilmView.FULL
+                ? "\"" + stamp.version() + "\""
+                : "\"" + stamp.version() + "-" + view.name().toLowerCase() + "\"";
+    }
+
+    // one JSON document per line, written while the Mongo cursor is being read
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<? extends FilmProjection> films) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (films;
+                 JsonGenerator generator = objectMapper.createGenerator(out)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                int written = 0;
+                Iterator<? extends FilmProjection> iterator = films.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (++written % NDJSON_FLUSH_EVERY == 1) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .cacheControl(REVALIDATE)
+                .body(body);
     }
 
 }
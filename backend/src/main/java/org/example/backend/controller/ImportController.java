@@ -0,0 +1,38 @@
+package org.example.backend.controller;
+
+import org.example.backend.model.ImportJob;
+import org.example.backend.model.ImportRequest;
+import org.example.backend.service.FilmImportService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api")
+public class ImportController {
+
+    private final FilmImportService filmImportService;
+
+    public ImportController(FilmImportService filmImportService) {
+        this.filmImportService = filmImportService;
+    }
+
+    // runs in the background; poll the Location for progress
+    @PostMapping("/imports")
+    public ResponseEntity<ImportJob> startImport(@RequestBody ImportRequest request) {
+        ImportJob job = filmImportService.startImport(request.imdbIds());
+        return ResponseEntity.accepted().location(URI.create("/api/imports/" + job.id())).body(job);
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String id) {
+        return ResponseEntity.ok(filmImportService.getImport(id));
+    }
+
+    @PostMapping("/imports/{id}/resume")
+    public ResponseEntity<ImportJob> resumeImport(@PathVariable String id) {
+        ImportJob job = filmImportService.resumeImport(id);
+        return ResponseEntity.accepted().location(URI.create("/api/imports/" + job.id())).body(job);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.backend.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.backend.exceptions.ElementNotFoundExceptions;
+import org.example.backend.model.CachedPoster;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmCard;
+import org.example.backend.model.FilmView;
+import org.example.backend.service.FilmsService;
+import org.example.backend.service.PosterCache;
+import org.example.backend.service.PosterThumbnails;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api")
+public class PosterController {
+
+    // Tomcat's NIO connector can hand the file to the kernel after the servlet returns
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // the content behind a film's poster URL rarely changes; the ETag covers the case when it does
+    private static final CacheControl POSTER_CACHE = CacheControl.maxAge(7, TimeUnit.DAYS).cachePrivate();
+
+    private final FilmsService filmsService;
+    private final PosterCache posterCache;
+    private final PosterThumbnails posterThumbnails;
+
+    public PosterController(FilmsService filmsService, PosterCache posterCache, PosterThumbnails posterThumbnails) {
+        this.filmsService = filmsService;
+        this.posterCache = posterCache;
+        this.posterThumbnails = posterThumbnails;
+    }
+
+    // width picks the smallest resized variant at least that wide; the original is served until it exists
+    @GetMapping("/posters/{filmId}")
+    public void getPoster(@PathVariable String filmId,
+                          @RequestParam(required = false) Integer width,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        Integer variantWidth = width == null ? null : PosterThumbnails.variantWidth(width);
+        FilmProjection film = filmsService.getFilmById(filmId, FilmView.CARD);
+        String url = ((FilmCard) film).poster();
+        if (url == null || url.isBlank() || url.equals("N/A")) {
+            throw new ElementNotFoundExceptions("Film has no poster: " + filmId);
+        }
+        CachedPoster poster = posterCache.get(url)
+                .orElseThrow(() -> new ElementNotFoundExceptions("Poster not available: " + filmId));
+
+        if (variantWidth != null) {
+            Path variant = posterThumbnails.variant(poster, variantWidth).orElse(null);
+            if (variant != null) {
+                serve(variant, "image/jpeg", Files.size(variant), poster.hash() + "-" + variantWidth,
+                        request, response);
+                return;
+            }
+            posterThumbnails.submit(filmId, url);
+        }
+        serve(poster.file(), poster.contentType(), poster.size(), poster.hash(), request, response);
+    }
+
+    private static void serve(Path path, String contentType, long size, String etag,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, POSTER_CACHE.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + etag + "\"")) {
+            return;
+        }
+        response.setContentType(contentType);
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += file.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.backend.exceptions;
+
+import java.time.Duration;
+
+// our own limits say no: the daily quota is used up or too many callers are waiting
+public class OmdbQuotaException extends OmdbUnavailableException {
+
+    public OmdbQuotaException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
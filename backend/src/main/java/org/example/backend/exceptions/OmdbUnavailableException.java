@@ -0,0 +1,22 @@
+package org.example.backend.exceptions;
+
+import java.time.Duration;
+
+// OMDb cannot be called right now; retryAfter says when trying again makes sense
+public class OmdbUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OmdbUnavailableException(String message, Duration retryAfter) {
+        this(message, retryAfter, null);
+    }
+
+    public OmdbUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
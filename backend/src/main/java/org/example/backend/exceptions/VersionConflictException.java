@@ -0,0 +1,8 @@
+package org.example.backend.exceptions;
+
+// the client changed a version of the film that is no longer the stored one
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.backend.model;
+
+import java.nio.file.Path;
+
+// a poster file in the on-disk cache; hash is the SHA-256 of its content and names the file
+public record CachedPoster(
+        Path file,
+        String hash,
+        String contentType,
+        long size) {
+}
@@ -0,0 +1,13 @@
+package org.example.backend.model;
+
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// one counter document per collection, bumped on every write to it
+@Document(collection = "catalogVersions")
+public record CatalogVersion(
+        String id,
+        long version,
+        Instant updatedAt) {
+}
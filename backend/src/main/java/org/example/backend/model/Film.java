@@ -1,12 +1,29 @@
 package org.example.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.With;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 @With
+// renamed with posterPlaceholder added: an existing index cannot change its keys under the same name
+@CompoundIndex(name = "card_v2",
+        def = "{'title': 1, '_id': 1, 'releaseDate': 1, 'rate': 1, 'poster': 1, 'posterPlaceholder': 1}")
+// filter indexes: genre equality first (multikey over the genres array), then the ranges;
+// the single-field ones serve filters without a genre
+@CompoundIndex(name = "genres_releaseDate_rate", def = "{'genres': 1, 'releaseDate': 1, 'rate': 1}")
+@CompoundIndex(name = "releaseDate", def = "{'releaseDate': 1}")
+@CompoundIndex(name = "rate", def = "{'rate': 1}")
+// the natural key a batch upsert matches on; films missing either part are left out of it
+@CompoundIndex(name = "title_releaseDate", def = "{'title': 1, 'releaseDate': 1}", unique = true,
+        partialFilter = "{'title': {$exists: true}, 'releaseDate': {$exists: true}}")
 @Document(collection = "dbFilms")
 public record Film(
         String id,
@@ -18,5 +35,59 @@ public record Film(
         GENRE genre,
         Integer duration,
         String poster,
-        String description) {
+        String description,
+        Long version,
+        Instant updatedAt,
+        // tiny data: URI shown while the poster loads, filled in by PosterThumbnails
+        String posterPlaceholder,
+        // every genre of the film; genre is the main one and always among them
+        Set<GENRE> genres,
+        // genres as bits over GENRE ordinals, derived from genres and kept for bitwise filters
+        @JsonIgnore
+        int genreMask) implements FilmProjection {
+
+    public Film {
+        Set<GENRE> all = EnumSet.noneOf(GENRE.class);
+        if (genres != null) {
+            all.addAll(genres);
+        }
+        if (genre != null) {
+            all.add(genre);
+        } else if (!all.isEmpty()) {
+            genre = all.iterator().next();
+        }
+        genres = Collections.unmodifiableSet(all);
+        genreMask = GENRE.mask(all);
+    }
+
+    // a film that has not been written through FilmsService yet
+    public Film(String id, String title, LocalDate releaseDate, Double rate, String casts, GENRE genre,
+                Integer duration, String poster, String description) {
+        this(id, title, releaseDate, rate, casts, genre, duration, poster, description, null, null);
+    }
+
+    public Film(String id, String title, LocalDate releaseDate, Double rate, String casts, GENRE genre,
+                Integer duration, String poster, String description, Long version, Instant updatedAt) {
+        this(id, title, releaseDate, rate, casts, genre, duration, poster, description, version, updatedAt, null);
+    }
+
+    public Film(String id, String title, LocalDate releaseDate, Double rate, String casts, GENRE genre,
+                Integer duration, String poster, String description, Long version, Instant updatedAt,
+                String posterPlaceholder) {
+        this(id, title, releaseDate, rate, casts, genre, duration, poster, description, version, updatedAt,
+                posterPlaceholder, null, 0);
+    }
+
+    // swaps the main genre and keeps the others
+    public Film withGenre(GENRE genre) {
+        Set<GENRE> others = EnumSet.noneOf(GENRE.class);
+        others.addAll(genres);
+        others.remove(this.genre);
+        return withGenres(genre, others);
+    }
+
+    public Film withGenres(GENRE genre, Set<GENRE> genres) {
+        return new Film(id, title, releaseDate, rate, casts, genre, duration, poster, description, version,
+                updatedAt, posterPlaceholder, genres, 0);
+    }
 }
@@ -0,0 +1,15 @@
+package org.example.backend.model;
+
+// the outcome of one film in a batch write; index is its position in the request
+public record FilmBatchItem(int index, String id, Status status, String error) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+    public static FilmBatchItem failed(int index, String error) {
+        return new FilmBatchItem(index, null, Status.FAILED, error);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.backend.model;
+
+import java.util.List;
+
+// items are in request order, one per film sent
+public record FilmBatchResult(int created, int updated, int failed, List<FilmBatchItem> items) {
+}
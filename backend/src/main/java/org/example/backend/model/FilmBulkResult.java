@@ -0,0 +1,5 @@
+package org.example.backend.model;
+
+// matched: films the ids or filter selected; modified: films the single deleteMany or updateMany changed
+public record FilmBulkResult(long matched, long modified) {
+}
@@ -0,0 +1,16 @@
+package org.example.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+// list/card shape: only what the UI renders, all of it covered by the "card_v2" index
+public record FilmCard(
+        String id,
+        String title,
+        @JsonFormat(pattern = "dd-MM-yyyy")
+        LocalDate releaseDate,
+        Double rate,
+        String poster,
+        String posterPlaceholder) implements FilmProjection {
+}
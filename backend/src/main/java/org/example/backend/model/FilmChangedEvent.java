@@ -0,0 +1,9 @@
+package org.example.backend.model;
+
+// published by FilmsService after a write; before is null for a new film, after is null for a deleted one
+public record FilmChangedEvent(Film before, Film after) {
+
+    public String id() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.backend.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// opaque keyset position: the (title, id) pair of the last film on a page
+public record FilmCursor(String title, String id) {
+
+    private static final char SEPARATOR = '\u0000';
+
+    public String encode() {
+        String raw = title + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FilmCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        int separator = raw.lastIndexOf(SEPARATOR);
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return new FilmCursor(raw.substring(0, separator), raw.substring(separator + 1));
+    }
+
+    public static FilmCursor of(FilmProjection film) {
+        return new FilmCursor(film.title(), film.id());
+    }
+}
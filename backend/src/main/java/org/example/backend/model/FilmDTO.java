@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.With;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 @With
 public record FilmDTO(
@@ -16,5 +17,12 @@ public record FilmDTO(
         GENRE genre,
         Integer duration,
         String poster,
-        String description) {
+        String description,
+        // all of the film's genres; genre, when given, is the main one
+        Set<GENRE> genres) {
+
+    public FilmDTO(String title, LocalDate releaseDate, Double rate, String casts, GENRE genre, Integer duration,
+                   String poster, String description) {
+        this(title, releaseDate, rate, casts, genre, duration, poster, description, null);
+    }
 }
@@ -0,0 +1,12 @@
+package org.example.backend.model;
+
+import java.util.Map;
+
+// counts for the filter controls; each facet is counted with every filter except its own,
+// so it shows how many films picking another value would give. rates is keyed by whole point band
+public record FilmFacets(
+        long total,
+        Map<GENRE, Long> genres,
+        Map<Integer, Long> years,
+        Map<Integer, Long> rates) {
+}
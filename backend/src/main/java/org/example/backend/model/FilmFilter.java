@@ -0,0 +1,24 @@
+package org.example.backend.model;
+
+import java.util.List;
+
+// raw filter parameters as they arrive on /api/films/filter; validated into a FilmQuery by FilmsService
+public record FilmFilter(
+        Integer year,
+        Integer yearFrom,
+        Integer yearTo,
+        List<String> genre,
+        Double rate,  // strictly greater than, as before
+        Double minRate,
+        Double maxRate,
+        Integer minDuration,
+        Integer maxDuration,
+        List<String> sort,
+        List<String> genres,  // joined with genre
+        String match) {  // any (default) or all of the genres
+
+    public static FilmFilter of(Integer year, String genre, Double rate) {
+        return new FilmFilter(year, null, null, genre == null ? null : List.of(genre), rate,
+                null, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.backend.model;
+
+import java.util.List;
+
+public record FilmPage<T extends FilmProjection>(
+        List<T> films,
+        String nextCursor) {
+}
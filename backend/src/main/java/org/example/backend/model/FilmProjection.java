@@ -0,0 +1,9 @@
+package org.example.backend.model;
+
+// fields every film read shape carries; enough to build a keyset cursor
+public interface FilmProjection {
+
+    String id();
+
+    String title();
+}
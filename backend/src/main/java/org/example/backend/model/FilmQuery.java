@@ -0,0 +1,67 @@
+package org.example.backend.model;
+
+import lombok.Builder;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// validated film query; every null component means "not constrained"
+@Builder(toBuilder = true)
+public record FilmQuery(
+        LocalDate releasedFrom,  // inclusive
+        LocalDate releasedBefore,  // exclusive
+        Set<GENRE> genres,
+        GenreMatch genreMatch,  // null means ANY
+        Double rateAbove,  // exclusive
+        Double minRate,
+        Double maxRate,
+        Integer minDuration,
+        Integer maxDuration,
+        Sort sort,
+        FilmCursor after,
+        Integer limit) {
+
+    public static final FilmQuery ALL = FilmQuery.builder().build();
+
+    public boolean matchAll() {
+        return genreMatch == GenreMatch.ALL;
+    }
+
+    // for a film or facet cell with these genre bits
+    public boolean matchesGenres(int genreMask) {
+        int wanted = GENRE.mask(genres);
+        return matchAll() ? (genreMask & wanted) == wanted : (genreMask & wanted) != 0;
+    }
+
+    // the filter part of the query evaluated in memory, with the same semantics as the Mongo filter
+    public boolean matches(Film film) {
+        if (genres != null && !genres.isEmpty() && !matchesGenres(film.genreMask())) {
+            return false;
+        }
+        if (releasedFrom != null || releasedBefore != null) {
+            LocalDate released = film.releaseDate();
+            if (released == null
+                    || (releasedFrom != null && released.isBefore(releasedFrom))
+                    || (releasedBefore != null && !released.isBefore(releasedBefore))) {
+                return false;
+            }
+        }
+        if (rateAbove != null || minRate != null || maxRate != null) {
+            Double rate = film.rate();
+            if (rate == null
+                    || (rateAbove != null && rate <= rateAbove)
+                    || (minRate != null && rate < minRate)
+                    || (maxRate != null && rate > maxRate)) {
+                return false;
+            }
+        }
+        if (minDuration != null || maxDuration != null) {
+            Integer duration = film.duration();
+            return duration != null
+                    && (minDuration == null || duration >= minDuration)
+                    && (maxDuration == null || duration <= maxDuration);
+        }
+        return true;
+    }
+}
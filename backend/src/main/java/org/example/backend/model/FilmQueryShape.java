@@ -0,0 +1,10 @@
+package org.example.backend.model;
+
+import org.bson.Document;
+
+// the Mongo filter/sort a FilmQuery turns into, with values replaced by "?"
+public record FilmQueryShape(
+        Document filter,
+        Document sort,
+        Integer limit) {
+}
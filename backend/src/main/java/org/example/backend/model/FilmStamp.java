@@ -0,0 +1,10 @@
+package org.example.backend.model;
+
+import java.time.Instant;
+
+// validators of a single film, read without loading the document body
+public record FilmStamp(
+        String id,
+        Long version,
+        Instant updatedAt) {
+}
@@ -0,0 +1,27 @@
+package org.example.backend.model;
+
+public enum FilmView {
+    CARD(FilmCard.class),
+    FULL(Film.class);
+
+    private final Class<? extends FilmProjection> type;
+
+    FilmView(Class<? extends FilmProjection> type) {
+        this.type = type;
+    }
+
+    public Class<? extends FilmProjection> type() {
+        return type;
+    }
+
+    public static FilmView parse(String view) {
+        if (view == null || view.isBlank()) {
+            return FULL;
+        }
+        try {
+            return FilmView.valueOf(view.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid view: " + view);
+        }
+    }
+}
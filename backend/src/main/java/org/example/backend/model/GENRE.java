@@ -1,5 +1,10 @@
 package org.example.backend.model;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// films store their genres as a bitmask over the ordinals: only ever append new values
 public enum GENRE {
     ACTION,
     COMEDY,
@@ -11,5 +16,27 @@ public enum GENRE {
     THRILLER,
     ANIMATION,
     FANTASY,
-    ANIME
+    ANIME;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int mask(Collection<GENRE> genres) {
+        int mask = 0;
+        for (GENRE genre : genres) {
+            mask |= genre.bit();
+        }
+        return mask;
+    }
+
+    public static Set<GENRE> fromMask(int mask) {
+        Set<GENRE> genres = EnumSet.noneOf(GENRE.class);
+        for (GENRE genre : values()) {
+            if ((mask & genre.bit()) != 0) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
 }
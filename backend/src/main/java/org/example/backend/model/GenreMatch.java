@@ -0,0 +1,7 @@
+package org.example.backend.model;
+
+// how the genres of a filter combine: a film needs any one of them, or all of them
+public enum GenreMatch {
+    ANY,
+    ALL
+}
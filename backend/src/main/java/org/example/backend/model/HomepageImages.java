@@ -0,0 +1,19 @@
+package org.example.backend.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// posters of the films released within a month of today, built for one calendar day
+public record HomepageImages(
+        LocalDate today,
+        LocalDate start,
+        LocalDate end,
+        List<String> posters,
+        String etag) {
+
+    // same bounds as the Between query the snapshot was built from, both exclusive
+    public boolean covers(Film film) {
+        return film != null && film.releaseDate() != null
+                && film.releaseDate().isAfter(start) && film.releaseDate().isBefore(end);
+    }
+}
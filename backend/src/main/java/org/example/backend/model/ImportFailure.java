@@ -0,0 +1,4 @@
+package org.example.backend.model;
+
+public record ImportFailure(String imdbId, String message) {
+}
@@ -0,0 +1,44 @@
+package org.example.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.With;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// A bulk import of OMDb films. Ids are worked through in order, batch by batch, so every id
+// before resumeFrom has either been imported or recorded as failed; a resumed job starts there.
+@With
+@Document(collection = "importJobs")
+public record ImportJob(
+        String id,
+        ImportStatus status,
+        @JsonIgnore
+        List<String> imdbIds,
+        int total,
+        int resumeFrom,
+        int imported,
+        int failed,
+        // the first ones only, see FilmImportService.MAX_RECORDED_FAILURES
+        List<ImportFailure> failures,
+        String error,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt,
+        // where the current run (the first one or the latest resume) began, for the throughput
+        Instant runStartedAt,
+        int runStartIndex) {
+
+    @JsonProperty("filmsPerSecond")
+    public double filmsPerSecond() {
+        Instant end = finishedAt != null ? finishedAt : updatedAt;
+        if (runStartedAt == null || end == null) {
+            return 0;
+        }
+        long millis = Duration.between(runStartedAt, end).toMillis();
+        return millis <= 0 ? 0 : (resumeFrom - runStartIndex) * 1000.0 / millis;
+    }
+}
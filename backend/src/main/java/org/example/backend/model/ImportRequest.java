@@ -0,0 +1,6 @@
+package org.example.backend.model;
+
+import java.util.List;
+
+public record ImportRequest(List<String> imdbIds) {
+}
@@ -0,0 +1,8 @@
+package org.example.backend.model;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    // stopped by an error that is not about a single film; can be resumed
+    FAILED
+}
@@ -0,0 +1,7 @@
+package org.example.backend.model;
+
+// who is waiting for an OMDb call; a waiting interactive lookup always goes first
+public enum OmdbPriority {
+    INTERACTIVE,
+    BACKGROUND
+}
@@ -0,0 +1,17 @@
+package org.example.backend.model;
+
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// a raw OMDb answer, keyed by request ("movie:<imdbID>" or "search:<normalized title>");
+// Mongo deletes it once fetchedAt is older than the TTL
+@Document(collection = "omdbResponses")
+public record OmdbResponse(
+        String id,
+        MovieDetails movie,
+        SearchResponse search,
+        @Indexed(name = "fetchedAt_ttl", expireAfter = "7d")
+        Instant fetchedAt) {
+}
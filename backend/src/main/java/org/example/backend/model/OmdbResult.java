@@ -0,0 +1,5 @@
+package org.example.backend.model;
+
+// an OMDb answer; stale when it is past its TTL and is being refreshed in the background
+public record OmdbResult<T>(T value, boolean stale) {
+}
@@ -0,0 +1,10 @@
+package org.example.backend.model;
+
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// OMDb calls made on one UTC day (id is the ISO date), shared by all instances
+@Document(collection = "omdbUsage")
+public record OmdbUsage(
+        String id,
+        long count) {
+}
@@ -0,0 +1,53 @@
+package org.example.backend.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.example.backend.model.Film;
+import org.example.backend.model.GENRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Films written before they had a genre set carry only "genre". Filters and facets read "genres" and
+// "genreMask", so those are filled in from it at startup: one updateMany per genre, touching only
+// documents without a mask, so it is a no-op once done and safe to run on every instance.
+@Component
+public class FilmGenreMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(FilmGenreMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public FilmGenreMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            long migrated = 0;
+            for (GENRE genre : GENRE.values()) {
+                migrated += backfill(Criteria.where("genre").is(genre), List.of(genre));
+            }
+            migrated += backfill(new Criteria(), List.of());
+            if (migrated > 0) {
+                log.info("Filled in genres for {} films", migrated);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not fill in film genres, older films may be missing from genre filters: {}",
+                    e.getMessage());
+        }
+    }
+
+    private long backfill(Criteria criteria, List<GENRE> genres) {
+        Query query = Query.query(Criteria.where("genreMask").exists(false)).addCriteria(criteria);
+        Update update = new Update().set("genres", genres).set("genreMask", GENRE.mask(genres));
+        return mongoTemplate.updateMulti(query, update, Film.class).getModifiedCount();
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.backend.repository;
+
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// makes sure the indexes declared on Film exist even where auto-index-creation is off,
+// and reports the ones that could not be built (e.g. a same-named index with other keys)
+@Component
+public class FilmIndexVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(FilmIndexVerifier.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean failOnMissing;
+
+    public FilmIndexVerifier(MongoTemplate mongoTemplate,
+                             @Value("${films.indexes.fail-on-missing:false}") boolean failOnMissing) {
+        this.mongoTemplate = mongoTemplate;
+        this.failOnMissing = failOnMissing;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        Map<String, IndexDefinition> declared = declaredIndexes();
+        Map<String, Document> expected = expectedIndexes();
+
+        List<String> missing = missingIndexes(expected);
+        for (String name : missing) {
+            createInBackground(name, declared.get(name));
+        }
+
+        List<String> stillMissing = missingIndexes(expected);
+        if (stillMissing.isEmpty()) {
+            return;
+        }
+        String message = "Missing indexes on " + collection() + ": " + stillMissing;
+        if (failOnMissing) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // index name -> keys, as declared by the annotations on Film
+    Map<String, Document> expectedIndexes() {
+        Map<String, Document> expected = new HashMap<>();
+        declaredIndexes().forEach((name, definition) -> expected.put(name, definition.getIndexKeys()));
+        return expected;
+    }
+
+    private Map<String, IndexDefinition> declaredIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        Map<String, IndexDefinition> declared = new HashMap<>();
+        for (IndexDefinition definition : resolver.resolveIndexFor(Film.class)) {
+            declared.put(definition.getIndexOptions().getString("name"), definition);
+        }
+        return declared;
+    }
+
+    List<String> missingIndexes(Map<String, Document> expected) {
+        Map<String, Document> existing = new HashMap<>();
+        for (Document index : mongoTemplate.getCollection(collection()).listIndexes()) {
+            existing.put(index.getString("name"), index.get("key", Document.class));
+        }
+
+        List<String> missing = new ArrayList<>();
+        expected.forEach((name, keys) -> {
+            if (!sameKeys(keys, existing.get(name))) {
+                missing.add(name);
+            }
+        });
+        missing.sort(null);
+        return missing;
+    }
+
+    // the shell stores {rate: 1} as a double, the Java driver as an int
+    private static boolean sameKeys(Document expected, Document actual) {
+        if (actual == null || !List.copyOf(expected.keySet()).equals(List.copyOf(actual.keySet()))) {
+            return false;
+        }
+        for (Map.Entry<String, Object> key : expected.entrySet()) {
+            Object direction = actual.get(key.getKey());
+            boolean same = key.getValue() instanceof Number e && direction instanceof Number a
+                    ? e.doubleValue() == a.doubleValue()
+                    : key.getValue().equals(direction);
+            if (!same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a unique index also fails here while the collection holds duplicates of its key
+    private void createInBackground(String name, IndexDefinition definition) {
+        Document keys = definition.getIndexKeys();
+        Document options = definition.getIndexOptions();
+        IndexOptions indexOptions = new IndexOptions().name(name).background(true)
+                .unique(options.getBoolean("unique", false))
+                .partialFilterExpression(options.get("partialFilterExpression", Document.class));
+        try {
+            mongoTemplate.getCollection(collection()).createIndex(keys, indexOptions);
+            log.info("Created index {} {} on {}", name, keys.toJson(), collection());
+        } catch (RuntimeException e) {
+            log.warn("Could not create index {} on {}: {}", name, collection(), e.getMessage());
+        }
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Film.class);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.backend.repository;
+
+import org.bson.Document;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.FilmQueryShape;
+import org.example.backend.model.GENRE;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// builds one flat Mongo query per FilmQuery: equality fields first, then ranges,
+// so the planner sees the same shape for the same set of criteria
+public final class FilmQueryMapper {
+
+    private FilmQueryMapper() {
+    }
+
+    public static Query toMongoQuery(FilmQuery filmQuery) {
+        Query query = new Query();
+
+        if (filmQuery.genres() != null && !filmQuery.genres().isEmpty()) {
+            GENRE first = filmQuery.genres().iterator().next();
+            if (filmQuery.genres().size() == 1) {
+                query.addCriteria(Criteria.where("genres").is(first));
+            } else if (filmQuery.matchAll()) {
+                // one genre narrows through the multikey index, the mask checks the rest on the same documents
+                query.addCriteria(Criteria.where("genres").is(first));
+                query.addCriteria(Criteria.where("genreMask").bits().allSet(GENRE.mask(filmQuery.genres())));
+            } else {
+                // $in rather than genreMask $bitsAnySet: the planner serves $in on the multikey genres index
+                // with one bounded scan per genre, while $bitsAnySet can use no index at all and, with no
+                // single genre it must contain to anchor on, would check the mask of every film
+                query.addCriteria(Criteria.where("genres").in(filmQuery.genres()));
+            }
+        }
+        if (filmQuery.releasedFrom() != null || filmQuery.releasedBefore() != null) {
+            Criteria releaseDate = Criteria.where("releaseDate");
+            if (filmQuery.releasedFrom() != null) releaseDate.gte(filmQuery.releasedFrom());
+            if (filmQuery.releasedBefore() != null) releaseDate.lt(filmQuery.releasedBefore());
+            query.addCriteria(releaseDate);
+        }
+        if (filmQuery.rateAbove() != null || filmQuery.minRate() != null || filmQuery.maxRate() != null) {
+            Criteria rate = Criteria.where("rate");
+            if (filmQuery.rateAbove() != null) rate.gt(filmQuery.rateAbove());
+            if (filmQuery.minRate() != null) rate.gte(filmQuery.minRate());
+            if (filmQuery.maxRate() != null) rate.lte(filmQuery.maxRate());
+            query.addCriteria(rate);
+        }
+        if (filmQuery.minDuration() != null || filmQuery.maxDuration() != null) {
+            Criteria duration = Criteria.where("duration");
+            if (filmQuery.minDuration() != null) duration.gte(filmQuery.minDuration());
+            if (filmQuery.maxDuration() != null) duration.lte(filmQuery.maxDuration());
+            query.addCriteria(duration);
+        }
+
+        if (filmQuery.after() != null) {
+            // range seek on the (title, _id) index instead of skip(); the caller keeps the sort on title
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("title").gt(filmQuery.after().title()),
+                    Criteria.where("title").is(filmQuery.after().title()).and("_id").gt(filmQuery.after().id())));
+        }
+        Sort sort = filmQuery.sort() != null ? filmQuery.sort() : Sort.unsorted();
+        if (filmQuery.after() != null && sort.isUnsorted()) {
+            sort = Sort.by("title");
+        }
+        if (sort.isSorted()) {
+            // _id as the last key keeps the order stable between identical requests
+            query.with(sort.and(Sort.by("_id")));
+        }
+
+        if (filmQuery.limit() != null) {
+            query.limit(filmQuery.limit());
+        }
+        return query;
+    }
+
+    public static FilmQueryShape shape(FilmQuery filmQuery) {
+        Query query = toMongoQuery(filmQuery);
+        return new FilmQueryShape(
+                (Document) placeholders(query.getQueryObject()),
+                query.getSortObject(),
+                query.isLimited() ? query.getLimit() : null);
+    }
+
+    private static Object placeholders(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Document shape = new Document();
+            map.forEach((key, nested) -> shape.put(key.toString(), placeholders(nested)));
+            return shape;
+        }
+        if (value instanceof Collection<?> values) {
+            List<Object> shape = new ArrayList<>(values.size());
+            values.forEach(item -> shape.add(placeholders(item)));
+            return shape;
+        }
+        return "?";
+    }
+}
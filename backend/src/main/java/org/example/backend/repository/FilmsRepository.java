@@ -1,29 +1,23 @@
 package org.example.backend.repository;
 
 import org.example.backend.model.Film;
-import org.example.backend.model.GENRE;
+import org.example.backend.model.FilmStamp;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface FilmsRepository extends MongoRepository<Film, String> {
-
-    List<Film> findFilmsByRateAfter(Double rateAfter);
+public interface FilmsRepository extends MongoRepository<Film, String>, FilmsRepositoryCustom {
 
-    List<Film> findFilmsByGenre(GENRE genre);
+    Optional<FilmStamp> findStampById(String id);
 
     List<Film> findFilmsByReleaseDateBetween(LocalDate start, LocalDate end);
 
-    List<Film>  findFilmsByRateAfterAndReleaseDateBetween(Double rateAfter, LocalDate start, LocalDate end);
-
-    List<Film> findFilmsByGenreAndReleaseDateBetween(GENRE genre, LocalDate start, LocalDate end);
-
-    List<Film> findFilmsByGenreAndRateAfter(GENRE genre, Double rateAfter);
-
-    List<Film> findFilmsByGenreAndRateAfterAndReleaseDateBetween(GENRE genre, Double rateAfter, LocalDate start, LocalDate end);
+    // served by the card index, which leads with title
+    List<Film> findFilmsByTitleIn(Collection<String> titles);
 
 }
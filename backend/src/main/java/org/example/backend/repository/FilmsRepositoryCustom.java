@@ -0,0 +1,64 @@
+package org.example.backend.repository;
+
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmQuery;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// type is the read shape: Film for the whole document, or a projection such as FilmCard
+public interface FilmsRepositoryCustom {
+
+    // null criteria are ignored; see FilmQueryMapper for the generated filter
+    <T extends FilmProjection> List<T> findFilms(FilmQuery query, Class<T> type);
+
+    <T extends FilmProjection> Optional<T> findFilmById(String id, Class<T> type);
+
+    <T extends FilmProjection> List<T> findFilmsByIds(Collection<String> ids, Class<T> type);
+
+    // backed by a live cursor fetched in bounded batches; callers must close the stream
+    <T extends FilmProjection> Stream<T> streamFilms(FilmQuery query, Class<T> type);
+
+    // only the fields FilmChangedEvent listeners read, plus the version, of at most limit of the films query
+    // selects; the others are left null
+    List<Film> findEventStates(FilmQuery query, int limit);
+
+    List<Film> findEventStates(Collection<String> ids);
+
+    // as findEventStates, for those of ids a bulk update stamped with updatedAt
+    List<Film> findEventStatesUpdatedAt(Collection<String> ids, Instant updatedAt);
+
+    // one findAndModify that sets the non-null fields of changes and bumps the version, matched on
+    // expectedVersion too when there is one; returns the film as stored before it, or empty when nothing matched
+    Optional<Film> findAndUpdate(String id, Long expectedVersion, FilmDTO changes, Instant updatedAt);
+
+    // one findAndModify that sets only posterPlaceholder, on the film while its poster is still poster and
+    // its placeholder another one; returns the film as it was before, or empty when nothing matched
+    Optional<Film> setPosterPlaceholder(String id, String poster, String placeholder);
+
+    // one round trip; returns the film as it was, or empty when there was none
+    Optional<Film> findAndRemove(String id);
+
+    // one deleteMany on the query's criteria, leaving out films written after unchangedSince;
+    // returns the number of films deleted
+    long deleteFilms(FilmQuery query, Instant unchangedSince);
+
+    long deleteFilms(Collection<String> ids, Instant unchangedSince);
+
+    // one updateMany on the query's criteria applying changes the way findAndUpdate does, leaving out films
+    // written after updatedAt; returns the number of films modified
+    long updateFilms(FilmQuery query, FilmDTO changes, Instant updatedAt);
+
+    long updateFilms(Collection<String> ids, FilmDTO changes, Instant updatedAt);
+
+    // one unordered bulk write: films whose id is in replace overwrite the stored document while it is still
+    // at the version replace maps it to, the others are inserted. A failing film does not stop the rest;
+    // returns the position and error of each failure, a replace that found the film changed among them
+    Map<Integer, String> bulkWrite(List<Film> films, Map<String, Long> replace);
+}
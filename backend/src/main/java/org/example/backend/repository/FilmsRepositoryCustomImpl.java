@@ -0,0 +1,274 @@
+package org.example.backend.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class FilmsRepositoryCustomImpl implements FilmsRepositoryCustom {
+
+    static final int STREAM_BATCH_SIZE = 500;
+    private static final List<String> GENRE_NAMES = Arrays.stream(GENRE.values()).map(GENRE::name).toList();
+    private static final int DUPLICATE_KEY = 11000;
+    // what the FilmChangedEvent listeners read of the film before a change; _id comes with every query
+    static final String[] EVENT_FIELDS = {"version", "genre", "genres", "releaseDate", "rate", "duration", "poster"};
+
+    private final MongoTemplate mongoTemplate;
+
+    public FilmsRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public <T extends FilmProjection> List<T> findFilms(FilmQuery filmQuery, Class<T> type) {
+        Query query = FilmQueryMapper.toMongoQuery(filmQuery);
+        return mongoTemplate.query(Film.class).as(type).matching(query).all();
+    }
+
+    @Override
+    public <T extends FilmProjection> Optional<T> findFilmById(String id, Class<T> type) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        return mongoTemplate.query(Film.class).as(type).matching(query).one();
+    }
+
+    @Override
+    public <T extends FilmProjection> List<T> findFilmsByIds(Collection<String> ids, Class<T> type) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        return mongoTemplate.query(Film.class).as(type).matching(query).all();
+    }
+
+    @Override
+    public <T extends FilmProjection> Stream<T> streamFilms(FilmQuery filmQuery, Class<T> type) {
+        Query query = FilmQueryMapper.toMongoQuery(filmQuery)
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+
+        return mongoTemplate.query(Film.class).as(type).matching(query).stream();
+    }
+
+    @Override
+    public List<Film> findEventStates(FilmQuery filmQuery, int limit) {
+        return findEventStates(FilmQueryMapper.toMongoQuery(filmQuery).limit(limit));
+    }
+
+    @Override
+    public List<Film> findEventStates(Collection<String> ids) {
+        return findEventStates(Query.query(Criteria.where("_id").in(ids)));
+    }
+
+    @Override
+    public List<Film> findEventStatesUpdatedAt(Collection<String> ids, Instant updatedAt) {
+        return findEventStates(Query.query(Criteria.where("_id").in(ids).and("updatedAt").is(updatedAt)));
+    }
+
+    private List<Film> findEventStates(Query query) {
+        query.fields().include(EVENT_FIELDS);
+        return mongoTemplate.find(query, Film.class);
+    }
+
+    @Override
+    public Optional<Film> findAndUpdate(String id, Long expectedVersion, FilmDTO changes, Instant updatedAt) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(criteria), toUpdate(changes, updatedAt),
+                FindAndModifyOptions.options().returnNew(false), Film.class));
+    }
+
+    // The non-null fields of changes, the version bump and updatedAt, as one pipeline $set stage: every
+    // expression in it reads the document as it was, so a new poster can drop the placeholder of the old
+    // one in the same write. Values go in as $literal, so a title starting with $ is not a field path.
+    private AggregationUpdate toUpdate(FilmDTO changes, Instant updatedAt) {
+        Document set = new Document("version", new Document("$add", List.of(ifNull("$version", 0), 1)))
+                .append("updatedAt", literal(updatedAt));
+        if (changes.title() != null && !changes.title().isBlank()) {
+            set.append("title", literal(changes.title()));
+        }
+        setIfPresent(set, "releaseDate", changes.releaseDate());
+        setIfPresent(set, "rate", changes.rate());
+        setIfPresent(set, "casts", changes.casts());
+        setIfPresent(set, "duration", changes.duration());
+        setIfPresent(set, "description", changes.description());
+        if (changes.poster() != null) {
+            Document poster = literal(changes.poster());
+            // the placeholder previews the stored poster, so it stays only when that poster does
+            set.append("poster", poster)
+                    .append("posterPlaceholder", new Document("$cond", List.of(
+                            new Document("$eq", List.of("$poster", poster)), "$posterPlaceholder", "$$REMOVE")));
+        }
+        if (changes.genre() != null && (changes.genres() == null || !changes.genres().contains(changes.genre()))) {
+            // a new main genre replaces the stored one among the others, like Film.withGenre; the others
+            // are the given genres when there are any, so a client echoing the set it read still swaps
+            Document genre = literal(changes.genre());
+            Object others = changes.genres() != null ? literal(changes.genres()) : ifNull("$genres", List.of());
+            Document genres = new Document("$setUnion", List.of(
+                    new Document("$setDifference", List.of(others, Collections.singletonList("$genre"))),
+                    List.of(genre)));
+            set.append("genre", genre)
+                    .append("genres", genres)
+                    .append("genreMask", toMask(genres));
+        } else if (changes.genres() != null) {
+            // the whole set is given and already holds genre, so the stored one does not matter
+            Set<GENRE> genres = EnumSet.noneOf(GENRE.class);
+            genres.addAll(changes.genres());
+            set.append("genre", literal(changes.genre() != null ? changes.genre()
+                            : genres.isEmpty() ? null : genres.iterator().next()))
+                    .append("genres", literal(genres))
+                    .append("genreMask", literal(GENRE.mask(genres)));
+        }
+        Document stage = new Document("$set", set);
+        return AggregationUpdate.from(List.of(context -> stage));
+    }
+
+    private void setIfPresent(Document set, String field, Object value) {
+        if (value != null) {
+            set.append(field, literal(value));
+        }
+    }
+
+    // stored the way the mapping would store a Film field: LocalDate and Instant as dates, enums as names
+    private Document literal(Object value) {
+        return new Document("$literal", mongoTemplate.getConverter().convertToMongoType(value));
+    }
+
+    // GENRE.mask over a genres array expression: each name adds 2^ordinal
+    private static Document toMask(Document genres) {
+        Document bit = new Document("$pow", List.of(2, new Document("$indexOfArray", List.of(GENRE_NAMES, "$$this"))));
+        return new Document("$reduce", new Document("input", genres)
+                .append("initialValue", 0)
+                .append("in", new Document("$add", List.of("$$value", bit))));
+    }
+
+    private static Document ifNull(String field, Object otherwise) {
+        return new Document("$ifNull", List.of(field, otherwise));
+    }
+
+    @Override
+    public Optional<Film> setPosterPlaceholder(String id, String poster, String placeholder) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("poster").is(poster)
+                .and("posterPlaceholder").ne(placeholder));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set("posterPlaceholder", placeholder),
+                FindAndModifyOptions.options().returnNew(false), Film.class));
+    }
+
+    @Override
+    public Optional<Film> findAndRemove(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, Film.class));
+    }
+
+    @Override
+    public long deleteFilms(FilmQuery filmQuery, Instant unchangedSince) {
+        return deleteFilms(FilmQueryMapper.toMongoQuery(filmQuery), unchangedSince);
+    }
+
+    @Override
+    public long deleteFilms(Collection<String> ids, Instant unchangedSince) {
+        return deleteFilms(Query.query(Criteria.where("_id").in(ids)), unchangedSince);
+    }
+
+    private long deleteFilms(Query query, Instant unchangedSince) {
+        return mongoTemplate.remove(unchangedSince(query, unchangedSince), Film.class).getDeletedCount();
+    }
+
+    @Override
+    public long updateFilms(FilmQuery filmQuery, FilmDTO changes, Instant updatedAt) {
+        return updateFilms(FilmQueryMapper.toMongoQuery(filmQuery), changes, updatedAt);
+    }
+
+    @Override
+    public long updateFilms(Collection<String> ids, FilmDTO changes, Instant updatedAt) {
+        return updateFilms(Query.query(Criteria.where("_id").in(ids)), changes, updatedAt);
+    }
+
+    private long updateFilms(Query query, FilmDTO changes, Instant updatedAt) {
+        return mongoTemplate.updateMulti(unchangedSince(query, updatedAt), toUpdate(changes, updatedAt), Film.class)
+                .getModifiedCount();
+    }
+
+    // leaves out films written after since; $not also matches films that have no updatedAt yet
+    private static Query unchangedSince(Query query, Instant since) {
+        return query.addCriteria(Criteria.where("updatedAt").not().gt(since));
+    }
+
+    @Override
+    public Map<Integer, String> bulkWrite(List<Film> films, Map<String, Long> replace) {
+        if (films.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Film.class);
+        for (Film film : films) {
+            if (replace.containsKey(film.id())) {
+                // only over the film as it was read; a concurrent write in between is not overwritten
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(film.id())
+                        .and("version").is(replace.get(film.id()))), film);
+            } else {
+                bulk.insert(film);
+            }
+        }
+        Map<Integer, String> failures = new HashMap<>();
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getCode() == DUPLICATE_KEY
+                        ? "A film with the same title and release date already exists"
+                        : error.getMessage());
+            }
+            result = e.getResult();
+        }
+        if (result.getMatchedCount() < replace.size()) {
+            failures.putAll(findReplaceConflicts(films, replace, failures.keySet()));
+        }
+        return failures;
+    }
+
+    // a bulk result only counts the replaces that matched, so the ones that did not are those whose
+    // film is not stored as this write left it
+    private Map<Integer, String> findReplaceConflicts(List<Film> films, Map<String, Long> replace,
+                                                      Set<Integer> failed) {
+        Query query = Query.query(Criteria.where("_id").in(replace.keySet()));
+        query.fields().include("version", "updatedAt");
+        Map<String, Film> stored = new HashMap<>();
+        for (Film film : mongoTemplate.find(query, Film.class)) {
+            stored.put(film.id(), film);
+        }
+        Map<Integer, String> conflicts = new HashMap<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            Film storedFilm = stored.get(film.id());
+            if (replace.containsKey(film.id()) && !failed.contains(i) && (storedFilm == null
+                    || !Objects.equals(storedFilm.version(), film.version())
+                    || !Objects.equals(storedFilm.updatedAt(), film.updatedAt()))) {
+                conflicts.put(i, "Film " + film.id() + " changed since it was read");
+            }
+        }
+        return conflicts;
+    }
+}
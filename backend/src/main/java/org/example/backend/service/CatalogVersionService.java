@@ -0,0 +1,53 @@
+package org.example.backend.service;
+
+import org.example.backend.model.CatalogVersion;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The films version is answered from memory, so conditional GETs never touch the database. A bump keeps
+// the version this instance wrote; other instances' bumps are read every catalog.version.refresh-interval.
+@Service
+public class CatalogVersionService {
+
+    static final String FILMS = "dbFilms";
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicReference<CatalogVersion> filmsVersion = new AtomicReference<>();
+
+    public CatalogVersionService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public CatalogVersion getFilmsVersion() {
+        CatalogVersion version = filmsVersion.get();
+        return version != null ? version : refreshFilmsVersion();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.version.refresh-interval:PT5S}")
+    public CatalogVersion refreshFilmsVersion() {
+        CatalogVersion version = mongoTemplate.findById(FILMS, CatalogVersion.class);
+        return remember(version != null ? version : new CatalogVersion(FILMS, 0, Instant.EPOCH));
+    }
+
+    public void bumpFilmsVersion() {
+        remember(mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(FILMS)),
+                new Update().inc("version", 1).currentDate("updatedAt"),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                CatalogVersion.class));
+    }
+
+    // a refresh that read before a concurrent bump must not take the version back
+    private CatalogVersion remember(CatalogVersion version) {
+        return filmsVersion.accumulateAndGet(version,
+                (current, read) -> current == null || read.version() > current.version() ? read : current);
+    }
+}
@@ -5,116 +5,114 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.util.Set;
 
 
 @Service
 public class ClientApiService {
     private final RestClient restClient;
     private final String apiKey;
+    private final OmdbCache omdbCache;
+    private final OmdbStore omdbStore;
+    private final OmdbRateLimiter omdbRateLimiter;
+    private final OmdbCircuitBreaker omdbCircuitBreaker;
 
     public ClientApiService(
             RestClient.Builder restClientBuilder,
             @Value("${baseUri}") String baseUri,
-            @Value("${apikey}") String apiKey
+            @Value("${apikey}") String apiKey,
+            OmdbCache omdbCache,
+            OmdbStore omdbStore,
+            OmdbRateLimiter omdbRateLimiter,
+            OmdbCircuitBreaker omdbCircuitBreaker,
+            OmdbHttpTransport omdbHttpTransport
     ) {
-        this.restClient = restClientBuilder.baseUrl(baseUri).build();
+        // a copy, so the OMDb transport does not leak into other clients built from the shared builder
+        RestClient.Builder omdbClient = restClientBuilder.clone();
+        omdbHttpTransport.requestFactory().ifPresent(omdbClient::requestFactory);
+        this.restClient = omdbClient.baseUrl(baseUri).build();
         this.apiKey = apiKey;
+        this.omdbCache = omdbCache;
+        this.omdbStore = omdbStore;
+        this.omdbRateLimiter = omdbRateLimiter;
+        this.omdbCircuitBreaker = omdbCircuitBreaker;
     }
 
+    // memory first, then the stored responses, then OMDb
     public SearchResponse getListOfChosenFilmByName(String title){
-        return restClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .queryParam("apikey", apiKey)
-                        .queryParam("type", "movie")
-                        .queryParam("s", title)
-                        .build())
-                .retrieve()
-                .body(SearchResponse.class);
+        return searchFilms(title).value();
     }
 
-    public FilmDTO getMovieById(String imdbId) {
-
-        MovieDetails movieDetails = restClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .queryParam("apikey", apiKey)
-                        .queryParam("i", imdbId)
-                        .build())
-                .retrieve()
-                .body(MovieDetails.class);
-
-            //convert to Integer
-            Integer duration = safeParseDuration(movieDetails.runtime());
-            //convert to LocalDate
-            LocalDate releaseDate = parseReleased(movieDetails.released());
-            //convert to GENRE
-            GENRE genre = fromString(movieDetails.genre());
-            //convert to rated
-            Double rated = safeParseRated(movieDetails.imdbRating());
-
-        return new FilmDTO(
-                movieDetails.title(), //title
-                releaseDate, //releaseDate
-                rated, //rate Double
-                movieDetails.actors(), //casts
-                genre, // GENRE enum
-                duration,// duration
-                movieDetails.poster(), //poster
-                movieDetails.plot() //description
-        );
+    // stale when OMDb's answer is past its TTL; a fresh one is then being fetched in the background
+    public OmdbResult<SearchResponse> searchFilms(String title) {
+        return omdbCache.search(title, OmdbPriority.INTERACTIVE, new OmdbCache.Loader<>(
+                () -> omdbStore.findSearch(title),
+                priority -> {
+                    SearchResponse response = fetchSearch(title, priority);
+                    omdbStore.saveSearch(title, response);
+                    return response;
+                }));
     }
 
-    //convert Duration to Integer
-    private static Integer safeParseDuration(String runtime){
-        if (runtime == null) {
-            return 0;
-        }
-
-        String digits = runtime.replaceAll("\\D+", "");
-        if (digits.isEmpty()) {
-            return 0;
-        }
-            return Integer.parseInt(digits);
+    public FilmDTO getMovieById(String imdbId) {
+        return getMovieById(imdbId, OmdbPriority.INTERACTIVE);
     }
 
-    //convert LocalDate
-    private static LocalDate parseReleased(String released) {
-        if (released == null || released.isBlank()) {
-            throw new IllegalArgumentException("Released date cannot be null or blank");
-        }
+    public FilmDTO getMovieById(String imdbId, OmdbPriority priority) {
+        return findMovie(imdbId, priority).value();
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
-        return LocalDate.parse(released, formatter);
+    public OmdbResult<FilmDTO> findMovie(String imdbId, OmdbPriority priority) {
+        return omdbCache.movie(imdbId, priority, new OmdbCache.Loader<>(
+                () -> omdbStore.findMovie(imdbId)
+                        .map(stored -> new OmdbCache.Entry<>(toFilmDTO(stored.value()), stored.fetchedAt())),
+                fetchPriority -> {
+                    MovieDetails movieDetails = fetchMovie(imdbId, fetchPriority);
+                    omdbStore.saveMovie(imdbId, movieDetails);
+                    return toFilmDTO(movieDetails);
+                }));
     }
 
-    //convert to enum GENRE
-    private static GENRE fromString(String genres) {
-        if (genres == null || genres.isBlank()) {
-            return null;
-        }
+    // each attempt takes its own token; the breaker gives up at once while OMDb is known to be down
+    private SearchResponse fetchSearch(String title, OmdbPriority priority) {
+        return omdbCircuitBreaker.call(priority, () -> {
+            omdbRateLimiter.acquire(priority);
+            return restClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .queryParam("apikey", apiKey)
+                            .queryParam("type", "movie")
+                            .queryParam("s", title)
+                            .build())
+                    .retrieve()
+                    .body(SearchResponse.class);
+        });
+    }
 
-        String[] parts = genres.split(",");
-        for (String part : parts) {
-            String normalized = part.trim().toUpperCase().replace("-", "_").replace(" ", "_");
-            try {
-                return GENRE.valueOf(normalized);
-            } catch (IllegalArgumentException e) {
-                //
-            }
-        }
-        return null;
+    private MovieDetails fetchMovie(String imdbId, OmdbPriority priority) {
+        return omdbCircuitBreaker.call(priority, () -> {
+            omdbRateLimiter.acquire(priority);
+            return restClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .queryParam("apikey", apiKey)
+                            .queryParam("i", imdbId)
+                            .build())
+                    .retrieve()
+                    .body(MovieDetails.class);
+        });
     }
 
-    private static Double safeParseRated(String rating) {
-        try {
-            return rating != null && !rating.equalsIgnoreCase("N/A")
-                    ? Double.parseDouble(rating)
-                    : null;
-        } catch (NumberFormatException e) {
-            return null;
-        }
+    private static FilmDTO toFilmDTO(MovieDetails movieDetails) {
+        return new FilmDTO(
+                movieDetails.title(), //title
+                OmdbNormalizer.parseReleased(movieDetails.released()), //releaseDate
+                OmdbNormalizer.parseRating(movieDetails.imdbRating()), //rate Double
+                movieDetails.actors(), //casts
+                OmdbNormalizer.parseGenre(movieDetails.genre()), // GENRE enum
+                OmdbNormalizer.parseRuntime(movieDetails.runtime()),// duration
+                movieDetails.poster(), //poster
+                movieDetails.plot(), //description
+                Set.copyOf(OmdbNormalizer.parseGenres(movieDetails.genre())) // all genres we know
+        );
     }
 
 }
@@ -0,0 +1,203 @@
+package org.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmFacets;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Film counts per (genre set, release year, rate in hundredths) cell. Counted once by an aggregation before
+// the web server starts, then moved by FilmChangedEvent; facet requests only read the cells.
+// The genre set is the film's genreMask, so a film counts once in total and once under each of its genres;
+// older films need theirs filled in by FilmGenreMigration first.
+// Rates are bucketed at the scale FilmFilterIndex compares them at, so rate filters in hundredths are
+// answered exactly, and rounded half to even on both sides: Mongo's $round and Math.rint agree, so a
+// film counted by the aggregation is taken out of the same cell when it changes.
+// Events only come from this instance, so the cells are counted again every films.facets.reload-interval
+// to take in what other instances wrote.
+@DependsOn("filmGenreMigration")
+@Component
+public class FilmFacetCounts {
+
+    private static final int RATE_SCALE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    // events share the read lock, a reload takes the write lock to swap the cells
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ConcurrentMap<Cell, AtomicLong> cells = new ConcurrentHashMap<>();
+
+    public FilmFacetCounts(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${films.facets.reload-interval:PT10M}",
+            initialDelayString = "${films.facets.reload-interval:PT10M}")
+    public void reload() {
+        // LocalDate is stored as local midnight, so the year is taken in the same zone
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project("genreMask")
+                        .and(DateOperators.Year.yearOf("releaseDate")
+                                .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId())))
+                        .as("year")
+                        .and(ArithmeticOperators.Round.roundValueOf(
+                                ArithmeticOperators.Multiply.valueOf("rate").multiplyBy(RATE_SCALE)))
+                        .as("rate"),
+                Aggregation.group("genreMask", "year", "rate").count().as("count"));
+
+        ConcurrentMap<Cell, AtomicLong> counted = new ConcurrentHashMap<>();
+        lock.writeLock().lock();
+        try {
+            for (Document group : mongoTemplate.aggregate(aggregation, Film.class, Document.class)) {
+                Document id = group.get("_id", Document.class);
+                Number genres = id.get("genreMask", Number.class);
+                Number year = id.get("year", Number.class);
+                Number rate = id.get("rate", Number.class);
+                Cell cell = new Cell(genres == null ? 0 : genres.intValue(),
+                        year == null ? null : year.intValue(),
+                        rate == null ? null : rate.intValue());
+                counted.put(cell, new AtomicLong(group.get("count", Number.class).longValue()));
+            }
+            cells = counted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            if (event.before() != null) {
+                counter(Cell.of(event.before())).decrementAndGet();
+            }
+            if (event.after() != null) {
+                counter(Cell.of(event.after())).incrementAndGet();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // duration is not a dimension of the cells, so FilmsService rejects it before calling this
+    public FilmFacets count(FilmQuery query) {
+        Bounds bounds = new Bounds(query);
+        long total = 0;
+        Map<GENRE, Long> genres = new EnumMap<>(GENRE.class);
+        Map<Integer, Long> years = new TreeMap<>();
+        Map<Integer, Long> rates = new TreeMap<>();
+
+        for (Map.Entry<Cell, AtomicLong> entry : cells.entrySet()) {
+            long count = entry.getValue().get();
+            if (count <= 0) {
+                continue;
+            }
+            Cell cell = entry.getKey();
+            boolean genre = bounds.genre(cell);
+            boolean year = bounds.year(cell);
+            boolean rate = bounds.rate(cell);
+
+            if (genre && year && rate) {
+                total += count;
+            }
+            if (year && rate) {
+                for (GENRE cellGenre : GENRE.fromMask(cell.genres())) {
+                    genres.merge(cellGenre, count, Long::sum);
+                }
+            }
+            if (genre && rate && cell.year() != null) {
+                years.merge(cell.year(), count, Long::sum);
+            }
+            if (genre && year && cell.rate() != null) {
+                rates.merge(cell.rate() / RATE_SCALE, count, Long::sum);
+            }
+        }
+        return new FilmFacets(total, genres, years, rates);
+    }
+
+    // cells pushed below zero by an event that did not match the counted state; should be none
+    long negativeCells() {
+        return cells.values().stream().filter(count -> count.get() < 0).count();
+    }
+
+    private AtomicLong counter(Cell cell) {
+        return cells.computeIfAbsent(cell, c -> new AtomicLong());
+    }
+
+    private record Cell(int genres, Integer year, Integer rate) {
+
+        static Cell of(Film film) {
+            return new Cell(film.genreMask(),
+                    film.releaseDate() == null ? null : film.releaseDate().getYear(),
+                    film.rate() == null ? null : (int) Math.rint(film.rate() * RATE_SCALE));
+        }
+    }
+
+    // the query's filter translated to cell coordinates; years come from FilmsService as Jan 1 bounds
+    private static final class Bounds {
+
+        private final FilmQuery query;
+        private final int fromYear;
+        private final int beforeYear;
+        private final int minRate;
+        private final int maxRate;
+
+        Bounds(FilmQuery query) {
+            this.query = query;
+            this.fromYear = query.releasedFrom() == null ? Integer.MIN_VALUE : query.releasedFrom().getYear();
+            this.beforeYear = query.releasedBefore() == null ? Integer.MAX_VALUE : query.releasedBefore().getYear();
+            int min = Integer.MIN_VALUE;
+            if (query.rateAbove() != null) min = floorRate(query.rateAbove()) + 1;
+            if (query.minRate() != null) min = Math.max(min, ceilRate(query.minRate()));
+            this.minRate = min;
+            this.maxRate = query.maxRate() == null ? Integer.MAX_VALUE : floorRate(query.maxRate());
+        }
+
+        boolean genre(Cell cell) {
+            return query.genres() == null || query.genres().isEmpty() || query.matchesGenres(cell.genres());
+        }
+
+        boolean year(Cell cell) {
+            if (query.releasedFrom() == null && query.releasedBefore() == null) return true;
+            return cell.year() != null && cell.year() >= fromYear && cell.year() < beforeYear;
+        }
+
+        boolean rate(Cell cell) {
+            if (query.rateAbove() == null && query.minRate() == null && query.maxRate() == null) return true;
+            return cell.rate() != null && cell.rate() >= minRate && cell.rate() <= maxRate;
+        }
+
+        // 8.7 * 100 comes out as 869.9999999999999, which must still count as 870
+        private static int floorRate(double rate) {
+            double scaled = rate * RATE_SCALE;
+            long rounded = Math.round(scaled);
+            return (int) (Math.abs(scaled - rounded) < 1e-6 ? rounded : Math.floor(scaled));
+        }
+
+        private static int ceilRate(double rate) {
+            double scaled = rate * RATE_SCALE;
+            long rounded = Math.round(scaled);
+            return (int) (Math.abs(scaled - rounded) < 1e-6 ? rounded : Math.ceil(scaled));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Results of /api/films/filter keyed by the normalized query and read shape, weighed by the number
+// of films they hold. A write only evicts the entries whose query matches the film before or after
+// the change; the TTL is a backstop for writes that bypass FilmsService.
+// Metrics: cache.gets/puts/evictions{cache=films.filter} and films.filter.cache.invalidations.
+@Component
+public class FilmFilterCache {
+
+    private final boolean enabled;
+    private final Cache<Key, List<? extends FilmProjection>> cache;
+    private final Counter invalidations;
+    // bumped before every invalidation, so a result loaded across a write is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public FilmFilterCache(@Value("${films.filter-cache.enabled:true}") boolean enabled,
+                           @Value("${films.filter-cache.max-films:100000}") long maxFilms,
+                           @Value("${films.filter-cache.ttl:10m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxFilms)
+                .weigher((Key key, List<? extends FilmProjection> films) -> films.size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("films.filter.cache.invalidations")
+                .description("Filter results evicted because a film they may contain changed")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "films.filter");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends FilmProjection> List<T> get(FilmQuery query, Class<T> type, Supplier<List<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(query, type);
+        List<T> cached = (List<T>) cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        List<T> films = List.copyOf(loader.get());
+        cache.put(key, films);
+        if (generation.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+        return films;
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> {
+            boolean affected = (event.before() != null && key.query().matches(event.before()))
+                    || (event.after() != null && key.query().matches(event.after()));
+            if (affected) {
+                invalidations.increment();
+            }
+            return affected;
+        });
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private record Key(FilmQuery query, Class<?> type) {
+    }
+}
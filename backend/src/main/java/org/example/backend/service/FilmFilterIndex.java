@@ -0,0 +1,263 @@
+package org.example.backend.service;
+
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// The filter columns of the whole catalog, one slot per film: a bitset per genre, set for each
+// genre a film has, release dates as epoch days and rates as hundredths. A filter is answered with
+// bitset ops (OR for match=any, AND for match=all) and primitive comparisons; Mongo is only asked
+// for the matching documents, by id. A filter matching more than films.filter-index.max-ids films is
+// left to Mongo, whose indexes serve a broad filter better than an _id $in list of that size would.
+// Kept current through FilmChangedEvent, so it only sees writes made through FilmsService.
+@Component
+public class FilmFilterIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FilmFilterIndex.class);
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final short NO_RATE = Short.MIN_VALUE;
+    private static final int RATE_SCALE = 100;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int maxIds;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final BitSet[] byGenre = new BitSet[GENRE.values().length];
+    private final BitSet live = new BitSet();
+    private final BitSet free = new BitSet();
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private int[] releaseDays = new int[INITIAL_CAPACITY];
+    private short[] rates = new short[INITIAL_CAPACITY];
+    private int size;
+    private volatile boolean ready;
+
+    public FilmFilterIndex(MongoTemplate mongoTemplate,
+                           @Value("${films.filter-index.enabled:false}") boolean enabled,
+                           @Value("${films.filter-index.max-ids:10000}") int maxIds) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = new BitSet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromMongo() {
+        if (!enabled) {
+            return;
+        }
+        Query query = new Query();
+        query.fields().include("genre", "genres", "releaseDate", "rate");
+        try (Stream<Film> films = mongoTemplate.query(Film.class).matching(query).stream()) {
+            load(films);
+            log.info("Film filter index loaded with {} films", slotById.size());
+        } catch (RuntimeException e) {
+            log.warn("Film filter index not loaded, filters go to Mongo: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.after() == null) {
+                remove(event.before().id());
+            } else {
+                put(event.after());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void load(Stream<Film> films) {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+            films.forEach(this::put);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ids of the films matching the query, or empty when the query has to go to Mongo: one the index
+    // cannot answer, or one matching more than maxIds films
+    public Optional<List<String>> matchIds(FilmQuery query) {
+        if (!ready || !supports(query)) {
+            return Optional.empty();
+        }
+
+        int fromDay = query.releasedFrom() == null ? Integer.MIN_VALUE : (int) query.releasedFrom().toEpochDay();
+        int beforeDay = query.releasedBefore() == null ? Integer.MAX_VALUE : (int) query.releasedBefore().toEpochDay();
+        boolean byDate = query.releasedFrom() != null || query.releasedBefore() != null;
+        // rates are compared in hundredths: above r means at least floor(r * 100) + 1
+        int minRate = Integer.MIN_VALUE;
+        if (query.rateAbove() != null) minRate = floorRate(query.rateAbove()) + 1;
+        if (query.minRate() != null) minRate = Math.max(minRate, ceilRate(query.minRate()));
+        int maxRate = query.maxRate() == null ? Integer.MAX_VALUE : floorRate(query.maxRate());
+        boolean byRate = query.rateAbove() != null || query.minRate() != null || query.maxRate() != null;
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates;
+            if (query.genres() != null && !query.genres().isEmpty()) {
+                candidates = null;
+                for (GENRE genre : query.genres()) {
+                    if (candidates == null) {
+                        candidates = (BitSet) byGenre[genre.ordinal()].clone();
+                    } else if (query.matchAll()) {
+                        candidates.and(byGenre[genre.ordinal()]);
+                    } else {
+                        candidates.or(byGenre[genre.ordinal()]);
+                    }
+                }
+            } else {
+                candidates = (BitSet) live.clone();
+            }
+
+            List<String> matches = new ArrayList<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (byDate) {
+                    int day = releaseDays[slot];
+                    if (day == NO_DATE || day < fromDay || day >= beforeDay) continue;
+                }
+                if (byRate) {
+                    short rate = rates[slot];
+                    if (rate == NO_RATE || rate < minRate || rate > maxRate) continue;
+                }
+                if (matches.size() == maxIds) {
+                    return Optional.empty();
+                }
+                matches.add(ids[slot]);
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // duration, sort and paging are left to Mongo
+    private static boolean supports(FilmQuery query) {
+        return query.minDuration() == null && query.maxDuration() == null
+                && (query.sort() == null || query.sort().isUnsorted())
+                && query.after() == null && query.limit() == null;
+    }
+
+    private void put(Film film) {
+        Integer existing = slotById.get(film.id());
+        int slot = existing != null ? existing : allocate(film.id());
+        for (BitSet genre : byGenre) {
+            genre.clear(slot);
+        }
+        for (GENRE genre : film.genres()) {
+            byGenre[genre.ordinal()].set(slot);
+        }
+        releaseDays[slot] = toDay(film.releaseDate());
+        rates[slot] = toRate(film.rate());
+    }
+
+    private void remove(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (BitSet genre : byGenre) {
+            genre.clear(slot);
+        }
+        live.clear(slot);
+        free.set(slot);
+        ids[slot] = null;
+    }
+
+    private int allocate(String id) {
+        int slot = free.nextSetBit(0);
+        if (slot >= 0) {
+            free.clear(slot);
+        } else {
+            slot = size++;
+            if (slot == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                releaseDays = Arrays.copyOf(releaseDays, capacity);
+                rates = Arrays.copyOf(rates, capacity);
+            }
+        }
+        ids[slot] = id;
+        live.set(slot);
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    private void clear() {
+        slotById.clear();
+        for (BitSet genre : byGenre) {
+            genre.clear();
+        }
+        live.clear();
+        free.clear();
+        Arrays.fill(ids, 0, size, null);
+        size = 0;
+    }
+
+    private static int toDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    // 8.3 * 100 is 830.0000000000001, which must still count as 830
+    private static int floorRate(double rate) {
+        double scaled = rate * RATE_SCALE;
+        long rounded = Math.round(scaled);
+        return (int) (Math.abs(scaled - rounded) < 1e-6 ? rounded : Math.floor(scaled));
+    }
+
+    private static int ceilRate(double rate) {
+        double scaled = rate * RATE_SCALE;
+        long rounded = Math.round(scaled);
+        return (int) (Math.abs(scaled - rounded) < 1e-6 ? rounded : Math.ceil(scaled));
+    }
+
+    // OMDb ratings have one decimal, so hundredths are exact. Writes keep rates within 0..10; one stored
+    // before that check is saturated rather than wrapped around, so it still sorts at the right end
+    static short toRate(Double rate) {
+        if (rate == null) {
+            return NO_RATE;
+        }
+        long scaled = Math.round(rate * RATE_SCALE);
+        return (short) Math.clamp(scaled, NO_RATE + 1, Short.MAX_VALUE);
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.backend.service;
+
+import org.example.backend.exceptions.ElementNotFoundExceptions;
+import org.example.backend.exceptions.OmdbUnavailableException;
+import org.example.backend.model.FilmBatchItem;
+import org.example.backend.model.FilmBatchResult;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.ImportFailure;
+import org.example.backend.model.ImportJob;
+import org.example.backend.model.ImportStatus;
+import org.example.backend.model.OmdbPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+// Imports films by imdbID in the background. Each batch is fetched concurrently on virtual threads,
+// written with one FilmsService.saveFilms upsert, and then recorded on the job, so a job stopped halfway
+// can be resumed; at most the batch in flight when it stopped is fetched again, and the upsert merges
+// any of its films that were already written instead of inserting them twice. OMDb calls across all jobs
+// share one concurrency cap.
+@Service
+public class FilmImportService {
+
+    static final int MAX_RECORDED_FAILURES = 100;
+    private static final Pattern IMDB_ID = Pattern.compile("tt\\d{7,10}");
+
+    private static final Logger log = LoggerFactory.getLogger(FilmImportService.class);
+
+    private final ClientApiService clientApiService;
+    private final FilmsService filmsService;
+    private final IdService idService;
+    private final MongoTemplate mongoTemplate;
+    private final Semaphore omdbCalls;
+    private final int batchSize;
+    private final int maxIds;
+    // jobs running in this instance
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public FilmImportService(ClientApiService clientApiService,
+                             FilmsService filmsService,
+                             IdService idService,
+                             MongoTemplate mongoTemplate,
+                             @Value("${imports.concurrency:8}") int concurrency,
+                             @Value("${imports.batch-size:100}") int batchSize,
+                             @Value("${imports.max-ids:100000}") int maxIds) {
+        this.clientApiService = clientApiService;
+        this.filmsService = filmsService;
+        this.idService = idService;
+        this.mongoTemplate = mongoTemplate;
+        this.omdbCalls = new Semaphore(concurrency);
+        this.batchSize = batchSize;
+        this.maxIds = maxIds;
+    }
+
+    public ImportJob startImport(List<String> imdbIds) {
+        if (imdbIds == null || imdbIds.isEmpty()) {
+            throw new IllegalArgumentException("imdbIds cannot be empty");
+        }
+        if (imdbIds.size() > maxIds) {
+            throw new IllegalArgumentException("At most " + maxIds + " imdbIds per import");
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String imdbId : imdbIds) {
+            if (imdbId == null || !IMDB_ID.matcher(imdbId.trim()).matches()) {
+                throw new IllegalArgumentException("Invalid imdbID: " + imdbId);
+            }
+            distinct.add(imdbId.trim());
+        }
+
+        Instant now = now();
+        ImportJob job = mongoTemplate.insert(new ImportJob(idService.generateId(), ImportStatus.RUNNING,
+                List.copyOf(distinct), distinct.size(), 0, 0, 0, List.of(), null, now, now, null, now, 0));
+        launch(job);
+        return job;
+    }
+
+    public ImportJob getImport(String id) {
+        ImportJob job = mongoTemplate.findById(id, ImportJob.class);
+        if (job == null) {
+            throw new ElementNotFoundExceptions("Import not found: " + id);
+        }
+        return job;
+    }
+
+    // picks up at resumeFrom, e.g. after a failure or a restart that cut the job short
+    public ImportJob resumeImport(String id) {
+        ImportJob job = getImport(id);
+        if (job.status() == ImportStatus.COMPLETED) {
+            throw new IllegalArgumentException("Import already completed: " + id);
+        }
+        if (running.contains(id)) {
+            throw new IllegalArgumentException("Import is still running: " + id);
+        }
+        Instant now = now();
+        mongoTemplate.updateFirst(byId(id), new Update()
+                .set("status", ImportStatus.RUNNING)
+                .set("error", null)
+                .set("updatedAt", now)
+                .set("runStartedAt", now)
+                .set("runStartIndex", job.resumeFrom()), ImportJob.class);
+        ImportJob resumed = job.withStatus(ImportStatus.RUNNING).withError(null).withUpdatedAt(now)
+                .withRunStartedAt(now).withRunStartIndex(job.resumeFrom());
+        launch(resumed);
+        return resumed;
+    }
+
+    private void launch(ImportJob job) {
+        if (!running.add(job.id())) {
+            throw new IllegalArgumentException("Import is still running: " + job.id());
+        }
+        Thread.ofVirtual().name("film-import-" + job.id()).start(() -> {
+            try {
+                run(job);
+            } finally {
+                running.remove(job.id());
+            }
+        });
+    }
+
+    void run(ImportJob job) {
+        List<String> imdbIds = job.imdbIds();
+        int index = job.resumeFrom();
+        try (ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (index < imdbIds.size()) {
+                List<String> batch = imdbIds.subList(index, Math.min(index + batchSize, imdbIds.size()));
+                List<Future<FilmDTO>> fetches = batch.stream()
+                        .map(imdbId -> fetchers.submit(() -> fetch(imdbId)))
+                        .toList();
+
+                List<FilmDTO> films = new ArrayList<>();
+                List<String> fetched = new ArrayList<>();
+                List<ImportFailure> failures = new ArrayList<>();
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        try {
+                            films.add(fetches.get(i).get());
+                            fetched.add(batch.get(i));
+                        } catch (ExecutionException e) {
+                            // out of quota or OMDb is down: stop here and leave the batch to a resume
+                            if (e.getCause() instanceof OmdbUnavailableException unavailable) {
+                                throw unavailable;
+                            }
+                            failures.add(new ImportFailure(batch.get(i), String.valueOf(e.getCause().getMessage())));
+                        }
+                    }
+                } catch (InterruptedException | RuntimeException e) {
+                    // the rest of the batch would only use up rate limit and quota for nothing
+                    fetches.forEach(fetch -> fetch.cancel(true));
+                    throw e;
+                }
+                int imported = save(films, fetched, failures);
+                index += batch.size();
+                recordBatch(job.id(), index, imported, failures);
+            }
+            mongoTemplate.updateFirst(byId(job.id()), new Update()
+                    .set("status", ImportStatus.COMPLETED)
+                    .set("updatedAt", now())
+                    .set("finishedAt", now()), ImportJob.class);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop(job.id(), "Interrupted");
+        } catch (RuntimeException e) {
+            log.warn("Import {} stopped at {}: {}", job.id(), index, e.getMessage());
+            stop(job.id(), e.getMessage());
+        }
+    }
+
+    private FilmDTO fetch(String imdbId) throws InterruptedException {
+        omdbCalls.acquire();
+        try {
+            FilmDTO film = clientApiService.getMovieById(imdbId, OmdbPriority.BACKGROUND);
+            if (film == null || film.title() == null || film.title().isBlank()) {
+                throw new IllegalArgumentException("No film returned for " + imdbId);
+            }
+            return film;
+        } finally {
+            omdbCalls.release();
+        }
+    }
+
+    // an upsert, so films a previous run of the job already wrote are merged rather than inserted again
+    private int save(List<FilmDTO> films, List<String> imdbIds, List<ImportFailure> failures) {
+        if (films.isEmpty()) {
+            return 0;
+        }
+        FilmBatchResult result = filmsService.saveFilms(films, true);
+        for (FilmBatchItem item : result.items()) {
+            if (item.status() == FilmBatchItem.Status.FAILED) {
+                failures.add(new ImportFailure(imdbIds.get(item.index()), item.error()));
+            }
+        }
+        return result.created() + result.updated();
+    }
+
+    // progress and the batch's failures in one update; the id list is never rewritten
+    private void recordBatch(String id, int resumeFrom, int imported, List<ImportFailure> failures) {
+        Update update = new Update()
+                .set("resumeFrom", resumeFrom)
+                .inc("imported", imported)
+                .inc("failed", failures.size())
+                .set("updatedAt", now());
+        if (!failures.isEmpty()) {
+            update.push("failures").slice(MAX_RECORDED_FAILURES).each(failures.toArray());
+        }
+        mongoTemplate.updateFirst(byId(id), update, ImportJob.class);
+    }
+
+    private void stop(String id, String error) {
+        mongoTemplate.updateFirst(byId(id), new Update()
+                .set("status", ImportStatus.FAILED)
+                .set("error", error)
+                .set("updatedAt", now()), ImportJob.class);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -1,38 +1,278 @@
 package org.example.backend.service;
 
 import org.example.backend.exceptions.ElementNotFoundExceptions;
+import org.example.backend.exceptions.VersionConflictException;
+import org.example.backend.model.CatalogVersion;
 import org.example.backend.model.Film;
+import org.example.backend.model.FilmBatchItem;
+import org.example.backend.model.FilmBatchResult;
+import org.example.backend.model.FilmBulkResult;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmCursor;
 import org.example.backend.model.FilmDTO;
+import org.example.backend.model.FilmFacets;
+import org.example.backend.model.FilmFilter;
+import org.example.backend.model.FilmPage;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.FilmQueryShape;
+import org.example.backend.model.FilmStamp;
+import org.example.backend.model.FilmView;
 import org.example.backend.model.GENRE;
+import org.example.backend.model.GenreMatch;
+import org.example.backend.model.HomepageImages;
+import org.example.backend.repository.FilmQueryMapper;
 import org.example.backend.repository.FilmsRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 @Service
 public class FilmsService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    // fields a result list may be ordered by; "-field" sorts descending
+    private static final Set<String> SORT_FIELDS = Set.of("title", "releaseDate", "rate", "duration");
+    private static final Sort PAGE_SORT = Sort.by("title");
+    private static final FilmDTO NO_CHANGES = new FilmDTO(null, null, null, null, null, null, null, null);
+
     private final FilmsRepository filmsRepository;
     private final IdService idService;
+    private final CatalogVersionService catalogVersionService;
+    private final FilmFilterIndex filmFilterIndex;
+    private final FilmFilterCache filmFilterCache;
+    private final FilmFacetCounts filmFacetCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<HomepageImages> homepageImages = new AtomicReference<>();
+    // set by writes inside the snapshot's window; the next read rebuilds once for the whole burst
+    private final AtomicBoolean homepageStale = new AtomicBoolean();
+    private final ReentrantLock homepageLock = new ReentrantLock();
 
-    public FilmsService(FilmsRepository filmsRepository, IdService idService) {
+    public FilmsService(FilmsRepository filmsRepository, IdService idService,
+                        CatalogVersionService catalogVersionService, FilmFilterIndex filmFilterIndex,
+                        FilmFilterCache filmFilterCache, FilmFacetCounts filmFacetCounts,
+                        ApplicationEventPublisher eventPublisher) {
         this.filmsRepository = filmsRepository;
         this.idService = idService;
+        this.catalogVersionService = catalogVersionService;
+        this.filmFilterIndex = filmFilterIndex;
+        this.filmFilterCache = filmFilterCache;
+        this.filmFacetCounts = filmFacetCounts;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CatalogVersion getCatalogVersion() {
+        return catalogVersionService.getFilmsVersion();
+    }
+
+    public Optional<FilmStamp> getFilmStamp(String id) {
+        return filmsRepository.findStampById(id);
     }
 
     public List<Film> getAllFilms() {
         return filmsRepository.findAll();
     }
 
+    public List<? extends FilmProjection> getAllFilms(FilmView view) {
+        if (view == FilmView.FULL) {
+            return getAllFilms();
+        }
+        return filmsRepository.findFilms(FilmQuery.ALL, view.type());
+    }
+
+    public Stream<Film> streamAllFilms() {
+        return streamAllFilms(Film.class);
+    }
+
+    public <T extends FilmProjection> Stream<T> streamAllFilms(Class<T> type) {
+        return filmsRepository.streamFilms(FilmQuery.ALL, type);
+    }
+
+    public FilmPage<Film> getFilmsPage(String after, int limit) {
+        return getFilmsPage(after, limit, Film.class);
+    }
+
+    public <T extends FilmProjection> FilmPage<T> getFilmsPage(String after, int limit, Class<T> type) {
+        return getFilmsPage(FilmQuery.ALL, after, limit, type);
+    }
+
     public Film addFilm(FilmDTO filmDTO) {
+        validateNewFilm(filmDTO);
+        Film savedFilm = filmsRepository.save(toNewFilm(filmDTO, now()));
+        catalogVersionService.bumpFilmsVersion();
+        eventPublisher.publishEvent(new FilmChangedEvent(null, savedFilm));
+        return savedFilm;
+    }
+
+    // one insertMany and one catalog bump for the whole batch; an invalid film rejects all of it
+    public List<Film> addFilms(List<FilmDTO> filmDTOs) {
+        if (filmDTOs.isEmpty()) {
+            return List.of();
+        }
+        filmDTOs.forEach(this::validateNewFilm);
+        Instant now = now();
+        List<Film> newFilms = filmDTOs.stream().map(filmDTO -> toNewFilm(filmDTO, now)).toList();
+        List<Film> savedFilms = filmsRepository.insert(newFilms);
+        catalogVersionService.bumpFilmsVersion();
+        savedFilms.forEach(film -> eventPublisher.publishEvent(new FilmChangedEvent(null, film)));
+        return savedFilms;
+    }
+
+    // Up to MAX_BATCH_SIZE films in one unordered bulk write, with ids generated for the whole batch.
+    // Each film is validated on its own, and one that is invalid or rejected by Mongo is reported in its
+    // item without holding up the others. With upsert, a film with the title and release date of a stored
+    // one is merged into it the way updateFilm does, unless it changed since it was read; a repeat of that
+    // key later in the batch fails, as does a new film whose key another writer stored in the meantime.
+    public FilmBatchResult saveFilms(List<FilmDTO> filmDTOs, boolean upsert) {
+        if (filmDTOs == null || filmDTOs.isEmpty()) {
+            throw new IllegalArgumentException("films cannot be empty");
+        }
+        if (filmDTOs.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " films per batch");
+        }
+        FilmBatchItem[] items = new FilmBatchItem[filmDTOs.size()];
+        for (int i = 0; i < items.length; i++) {
+            try {
+                validateNewFilm(filmDTOs.get(i));
+            } catch (RuntimeException e) {
+                items[i] = FilmBatchItem.failed(i, e.getMessage());
+            }
+        }
+
+        Map<FilmKey, Film> stored = upsert ? findStoredFilms(filmDTOs, items) : Map.of();
+        Map<FilmKey, Integer> firstByKey = new HashMap<>();
+        int newFilms = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                continue;
+            }
+            FilmKey key = FilmKey.of(filmDTOs.get(i));
+            Integer first = upsert ? firstByKey.putIfAbsent(key, i) : null;
+            if (first != null) {
+                items[i] = FilmBatchItem.failed(i, "Same title and release date as film " + first);
+            } else if (!stored.containsKey(key)) {
+                newFilms++;
+            }
+        }
+
+        Instant now = now();
+        Iterator<String> ids = idService.generateIds(newFilms).iterator();
+        List<Film> films = new ArrayList<>();
+        List<Film> before = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        // id -> the version it was read at, which the replace is matched on
+        Map<String, Long> replace = new HashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                continue;
+            }
+            Film storedFilm = stored.get(FilmKey.of(filmDTOs.get(i)));
+            if (storedFilm == null) {
+                films.add(toNewFilm(filmDTOs.get(i), ids.next(), now));
+            } else {
+                films.add(nextVersion(merge(storedFilm, filmDTOs.get(i)), now));
+                replace.put(storedFilm.id(), storedFilm.version());
+            }
+            before.add(storedFilm);
+            positions.add(i);
+        }
+
+        Map<Integer, String> failures = filmsRepository.bulkWrite(films, replace);
+        int created = 0;
+        int updated = 0;
+        List<FilmChangedEvent> events = new ArrayList<>();
+        for (int j = 0; j < films.size(); j++) {
+            int i = positions.get(j);
+            Film film = films.get(j);
+            if (failures.containsKey(j)) {
+                items[i] = FilmBatchItem.failed(i, failures.get(j));
+            } else if (before.get(j) == null) {
+                items[i] = new FilmBatchItem(i, film.id(), FilmBatchItem.Status.CREATED, null);
+                events.add(new FilmChangedEvent(null, film));
+                created++;
+            } else {
+                items[i] = new FilmBatchItem(i, film.id(), FilmBatchItem.Status.UPDATED, null);
+                events.add(new FilmChangedEvent(before.get(j), film));
+                updated++;
+            }
+        }
+        if (!events.isEmpty()) {
+            catalogVersionService.bumpFilmsVersion();
+            events.forEach(eventPublisher::publishEvent);
+        }
+        return new FilmBatchResult(created, updated, items.length - created - updated, List.of(items));
+    }
+
+    // one query for every title in the batch, matched on title and release date in memory
+    private Map<FilmKey, Film> findStoredFilms(List<FilmDTO> filmDTOs, FilmBatchItem[] items) {
+        Set<String> titles = new HashSet<>();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null) {
+                titles.add(filmDTOs.get(i).title());
+            }
+        }
+        Map<FilmKey, Film> stored = new HashMap<>();
+        for (Film film : filmsRepository.findFilmsByTitleIn(titles)) {
+            stored.putIfAbsent(new FilmKey(film.title(), film.releaseDate()), film);
+        }
+        return stored;
+    }
+
+    private record FilmKey(String title, LocalDate releaseDate) {
+
+        static FilmKey of(FilmDTO filmDTO) {
+            return new FilmKey(filmDTO.title(), filmDTO.releaseDate());
+        }
+    }
+
+    private void validateNewFilm(FilmDTO filmDTO) {
+        if (filmDTO == null) {
+            throw new NullPointerException("Film cannot be null.");
+        }
+        if (filmDTO.title() == null || filmDTO.title().isBlank()) {
+            throw new NullPointerException("Title cannot be null or blank.");
+        }
+        validateRate(filmDTO.rate());
+        validateDuration(filmDTO.duration());
+    }
+
+    private Film toNewFilm(FilmDTO filmDTO, Instant now) {
+        return toNewFilm(filmDTO, null, now);
+    }
 
+    private Film toNewFilm(FilmDTO filmDTO, String id, Instant now) {
         if (filmDTO.title() == null || filmDTO.title().isBlank()) {
             throw new NullPointerException("Title cannot be null or blank.");
         }
 
-        Film newFilm = new Film(
-                idService.generateId(),
+        return new Film(
+                id != null ? id : idService.generateId(),
                 filmDTO.title(),
                 filmDTO.releaseDate(),
                 filmDTO.rate(),
@@ -40,16 +280,127 @@ public class FilmsService {
                 filmDTO.genre(),
                 filmDTO.duration(),
                 filmDTO.poster(),
-                filmDTO.description()
+                filmDTO.description(),
+                1L,
+                now,
+                null,
+                filmDTO.genres(),
+                0
         );
-        return filmsRepository.save(newFilm);
     }
 
     public void deleteFilmById(String id) {
-        if (!filmsRepository.existsById(id)) {
-            throw new ElementNotFoundExceptions("Film not found: " + id);
+        Film film = filmsRepository.findAndRemove(id)
+                .orElseThrow(() -> new ElementNotFoundExceptions("Film not found: " + id));
+        catalogVersionService.bumpFilmsVersion();
+        eventPublisher.publishEvent(new FilmChangedEvent(film, null));
+    }
+
+    // Bulk changes run as one deleteMany or updateMany on the selection itself, ids or filter. The listeners
+    // of FilmChangedEvent need each film before the change, so only their fields are read first, for at
+    // most MAX_BATCH_SIZE films. The write leaves out films written after that read, so every film it
+    // touches has a before, and films that start matching in between are left alone.
+    public FilmBulkResult deleteFilms(List<String> ids) {
+        validateIds(ids);
+        Instant now = now();
+        return deleteSelected(filmsRepository.findEventStates(ids), () -> filmsRepository.deleteFilms(ids, now));
+    }
+
+    public FilmBulkResult deleteFilms(FilmFilter filter) {
+        FilmQuery query = toBulkQuery(filter);
+        Instant now = now();
+        return deleteSelected(findEventStates(query), () -> filmsRepository.deleteFilms(query, now));
+    }
+
+    private FilmBulkResult deleteSelected(List<Film> films, LongSupplier delete) {
+        if (films.isEmpty()) {
+            return new FilmBulkResult(0, 0);
+        }
+        long deleted = delete.getAsLong();
+        if (deleted > 0) {
+            List<Film> deletedFilms = films;
+            if (deleted < films.size()) {
+                // the films still stored were written in between and left alone
+                Set<String> kept = new HashSet<>();
+                filmsRepository.findEventStates(films.stream().map(Film::id).toList())
+                        .forEach(film -> kept.add(film.id()));
+                deletedFilms = films.stream().filter(film -> !kept.contains(film.id())).toList();
+            }
+            catalogVersionService.bumpFilmsVersion();
+            deletedFilms.forEach(film -> eventPublisher.publishEvent(new FilmChangedEvent(film, null)));
+        }
+        return new FilmBulkResult(films.size(), deleted);
+    }
+
+    // the non-null fields of changes on every selected film, as updateFilm applies them to one
+    public FilmBulkResult updateFilms(List<String> ids, FilmDTO changes) {
+        validateChanges(changes);
+        validateIds(ids);
+        Instant now = now();
+        return updateSelected(filmsRepository.findEventStates(ids), now,
+                () -> filmsRepository.updateFilms(ids, changes, now));
+    }
+
+    public FilmBulkResult updateFilms(FilmFilter filter, FilmDTO changes) {
+        validateChanges(changes);
+        FilmQuery query = toBulkQuery(filter);
+        Instant now = now();
+        return updateSelected(findEventStates(query), now, () -> filmsRepository.updateFilms(query, changes, now));
+    }
+
+    private FilmBulkResult updateSelected(List<Film> films, Instant now, LongSupplier update) {
+        if (films.isEmpty()) {
+            return new FilmBulkResult(0, 0);
+        }
+        long modified = update.getAsLong();
+        if (modified > 0) {
+            Map<String, Film> before = new HashMap<>();
+            films.forEach(film -> before.put(film.id(), film));
+            // the selected films this write stamped, as Mongo stored them
+            List<FilmChangedEvent> events = new ArrayList<>();
+            for (Film after : filmsRepository.findEventStatesUpdatedAt(before.keySet(), now)) {
+                events.add(new FilmChangedEvent(before.get(after.id()), after));
+            }
+            catalogVersionService.bumpFilmsVersion();
+            events.forEach(eventPublisher::publishEvent);
+        }
+        return new FilmBulkResult(films.size(), modified);
+    }
+
+    private List<Film> findEventStates(FilmQuery query) {
+        List<Film> films = filmsRepository.findEventStates(query, MAX_BATCH_SIZE + 1);
+        if (films.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("The filter selects more than " + MAX_BATCH_SIZE + " films");
+        }
+        return films;
+    }
+
+    private void validateIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids cannot be empty");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids per request");
+        }
+    }
+
+    private void validateChanges(FilmDTO changes) {
+        // a blank title is ignored, as in updateFilm
+        if (changes == null || NO_CHANGES.equals(changes.title() == null || changes.title().isBlank()
+                ? changes.withTitle(null) : changes)) {
+            throw new IllegalArgumentException("No changes given");
+        }
+        validateRate(changes.rate());
+        validateDuration(changes.duration());
+    }
+
+    // an empty filter would select the whole catalog, which is never what a bulk change means
+    private FilmQuery toBulkQuery(FilmFilter filter) {
+        FilmQuery query = toQuery(filter).toBuilder().sort(null).build();
+        if (FilmQueryMapper.toMongoQuery(query).getQueryObject().isEmpty()) {
+            throw new IllegalArgumentException("A filter is required for bulk changes");
         }
-        filmsRepository.deleteById(id);
+        return query;
     }
 
     public Film getFilmById(String id) {
@@ -57,9 +408,38 @@ public class FilmsService {
                 .orElseThrow(() -> new ElementNotFoundExceptions("Film not found: " + id));
     }
 
-    public Film updateFilm(String id, FilmDTO filmDTO) {
-        Film existingFilm = filmsRepository.findById(id)
+    public FilmProjection getFilmById(String id, FilmView view) {
+        if (view == FilmView.FULL) {
+            return getFilmById(id);
+        }
+        return filmsRepository.findFilmById(id, view.type())
                 .orElseThrow(() -> new ElementNotFoundExceptions("Film not found: " + id));
+    }
+
+    public Film updateFilm(String id, FilmDTO filmDTO) {
+        return updateFilm(id, filmDTO, null);
+    }
+
+    // One findAndModify that sets only the fields filmDTO carries, matched on expectedVersion when the
+    // caller has one. It returns the film as it was, which the listeners of FilmChangedEvent need, and the
+    // film after is the same change applied to it, so nothing is read before or after the write.
+    public Film updateFilm(String id, FilmDTO filmDTO, Long expectedVersion) {
+        validateRate(filmDTO.rate());
+        validateDuration(filmDTO.duration());
+        Instant now = now();
+        Film storedFilm = filmsRepository.findAndUpdate(id, expectedVersion, filmDTO, now)
+                .orElseThrow(() -> expectedVersion != null && filmsRepository.existsById(id)
+                        ? new VersionConflictException("Film " + id + " is no longer at version " + expectedVersion)
+                        : new ElementNotFoundExceptions("Film not found: " + id));
+        Film savedFilm = nextVersion(merge(storedFilm, filmDTO), now);
+        catalogVersionService.bumpFilmsVersion();
+        eventPublisher.publishEvent(new FilmChangedEvent(storedFilm, savedFilm));
+        return savedFilm;
+    }
+
+    // the non-null fields of filmDTO over the stored film, as FilmsRepository.findAndUpdate writes them
+    private Film merge(Film storedFilm, FilmDTO filmDTO) {
+        Film existingFilm = storedFilm;
 
         if (filmDTO.title() != null && !filmDTO.title().isBlank()) {
             existingFilm = existingFilm.withTitle(filmDTO.title());
@@ -73,36 +453,180 @@ public class FilmsService {
         if (filmDTO.casts() != null) {
             existingFilm = existingFilm.withCasts(filmDTO.casts());
         }
-        if (filmDTO.genre() != null) {
-            existingFilm = existingFilm.withGenre(filmDTO.genre());
+        if (filmDTO.genre() != null && (filmDTO.genres() == null || !filmDTO.genres().contains(filmDTO.genre()))) {
+            // the new main genre replaces the old one among the others, as FilmsRepository.findAndUpdate does
+            Set<GENRE> others = EnumSet.noneOf(GENRE.class);
+            others.addAll(filmDTO.genres() != null ? filmDTO.genres() : existingFilm.genres());
+            if (existingFilm.genre() != null) {
+                others.remove(existingFilm.genre());
+            }
+            existingFilm = existingFilm.withGenres(filmDTO.genre(), others);
+        } else if (filmDTO.genres() != null) {
+            existingFilm = existingFilm.withGenres(filmDTO.genre(), filmDTO.genres());
         }
         if (filmDTO.duration() != null) {
             existingFilm = existingFilm.withDuration(filmDTO.duration());
         }
-        if (filmDTO.poster() != null) {
-            existingFilm = existingFilm.withPoster(filmDTO.poster());
+        if (filmDTO.poster() != null && !filmDTO.poster().equals(existingFilm.poster())) {
+            // the old placeholder previews the old image
+            existingFilm = existingFilm.withPoster(filmDTO.poster()).withPosterPlaceholder(null);
         }
         if (filmDTO.description() != null) {
             existingFilm = existingFilm.withDescription(filmDTO.description());
         }
+        return existingFilm;
+    }
 
-        return filmsRepository.save(existingFilm);
+    private static Film nextVersion(Film film, Instant now) {
+        long version = film.version() == null ? 1 : film.version() + 1;
+        return film.withVersion(version).withUpdatedAt(now);
+    }
+
+    // written by the thumbnail pipeline; skipped when the poster was changed in the meantime. Only the
+    // placeholder is set: the film keeps its version, so a client's If-Match still holds afterwards
+    public Optional<Film> setPosterPlaceholder(String id, String poster, String placeholder) {
+        Optional<Film> stored = filmsRepository.setPosterPlaceholder(id, poster, placeholder);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        Film savedFilm = stored.get().withPosterPlaceholder(placeholder);
+        catalogVersionService.bumpFilmsVersion();
+        eventPublisher.publishEvent(new FilmChangedEvent(stored.get(), savedFilm));
+        return Optional.of(savedFilm);
     }
 
     public List<Film> getFilmsByFilter(Integer year, String genre, Double rate) {
-        LocalDate start = null;
-        LocalDate end = null;
+        return getFilmsByFilter(FilmFilter.of(year, genre, rate), Film.class);
+    }
+
+    public <T extends FilmProjection> List<T> getFilmsByFilter(FilmFilter filter, Class<T> type) {
+        FilmQuery query = toQuery(filter);
+        return filmFilterCache.get(query, type, () -> findFilms(query, type));
+    }
 
-        if (year != null) {
-            validateYear(year);
-            start = LocalDate.of(year, 1, 1);
-            end = LocalDate.of(year, 12, 31);
+    private <T extends FilmProjection> List<T> findFilms(FilmQuery query, Class<T> type) {
+        Optional<List<String>> ids = filmFilterIndex.matchIds(query);
+        if (ids.isPresent()) {
+            return ids.get().isEmpty() ? List.of() : filmsRepository.findFilmsByIds(ids.get(), type);
         }
+        return filmsRepository.findFilms(query, type);
+    }
 
-        GENRE filmGenre = parseGenre(genre);
-        validateRate(rate);
+    public Stream<Film> streamFilmsByFilter(Integer year, String genre, Double rate) {
+        return streamFilmsByFilter(FilmFilter.of(year, genre, rate), Film.class);
+    }
+
+    public <T extends FilmProjection> Stream<T> streamFilmsByFilter(FilmFilter filter, Class<T> type) {
+        return filmsRepository.streamFilms(toQuery(filter), type);
+    }
 
-        return queryFilms(start, end, filmGenre, rate);
+    public FilmPage<Film> getFilmsByFilterPage(Integer year, String genre, Double rate, String after, int limit) {
+        return getFilmsByFilterPage(FilmFilter.of(year, genre, rate), after, limit, Film.class);
+    }
+
+    public <T extends FilmProjection> FilmPage<T> getFilmsByFilterPage(FilmFilter filter, String after, int limit,
+                                                                       Class<T> type) {
+        return getFilmsPage(toQuery(filter), after, limit, type);
+    }
+
+    // answered from in-memory counters, never from Mongo
+    public FilmFacets getFacets(FilmFilter filter) {
+        FilmQuery query = toQuery(filter);
+        if (query.minDuration() != null || query.maxDuration() != null) {
+            throw new IllegalArgumentException("Facets cannot be filtered by duration");
+        }
+        return filmFacetCounts.count(query);
+    }
+
+    // the Mongo filter and sort a request would run, without running it
+    public FilmQueryShape getFilterShape(FilmFilter filter, String after, Integer limit) {
+        FilmQuery query = toQuery(filter);
+        if (limit != null) {
+            validateLimit(limit);
+            query = toPageQuery(query, FilmCursor.decode(after), limit + 1);
+        }
+        return FilmQueryMapper.shape(query);
+    }
+
+    private <T extends FilmProjection> FilmPage<T> getFilmsPage(FilmQuery query, String after, int limit,
+                                                                Class<T> type) {
+        validateLimit(limit);
+        FilmCursor cursor = FilmCursor.decode(after);
+
+        // one extra row tells us whether another page exists
+        List<T> films = filmsRepository.findFilms(toPageQuery(query, cursor, limit + 1), type);
+        if (films.size() <= limit) {
+            return new FilmPage<>(films, null);
+        }
+
+        List<T> page = films.subList(0, limit);
+        return new FilmPage<>(List.copyOf(page), FilmCursor.of(page.getLast()).encode());
+    }
+
+    // cursors encode (title, _id), so pages can only be walked in title order
+    private static FilmQuery toPageQuery(FilmQuery query, FilmCursor cursor, int limit) {
+        if (query.sort() != null && !query.sort().equals(PAGE_SORT)) {
+            throw new IllegalArgumentException("Paged results can only be sorted by title");
+        }
+        return query.toBuilder()
+                .sort(PAGE_SORT)
+                .after(cursor)
+                .limit(limit)
+                .build();
+    }
+
+    private FilmQuery toQuery(FilmFilter filter) {
+        if (filter.year() != null && (filter.yearFrom() != null || filter.yearTo() != null)) {
+            throw new IllegalArgumentException("Use either year or yearFrom/yearTo");
+        }
+        Integer yearFrom = filter.year() != null ? filter.year() : filter.yearFrom();
+        Integer yearTo = filter.year() != null ? filter.year() : filter.yearTo();
+        if (yearFrom != null) validateYear(yearFrom);
+        if (yearTo != null) validateYear(yearTo);
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new IllegalArgumentException("yearFrom must not be after yearTo: " + yearFrom + " > " + yearTo);
+        }
+
+        validateRate(filter.rate());
+        validateRate(filter.minRate());
+        validateRate(filter.maxRate());
+        if (filter.minRate() != null && filter.maxRate() != null && filter.minRate() > filter.maxRate()) {
+            throw new IllegalArgumentException("minRate must not be greater than maxRate");
+        }
+
+        validateDuration(filter.minDuration());
+        validateDuration(filter.maxDuration());
+        if (filter.minDuration() != null && filter.maxDuration() != null
+                && filter.minDuration() > filter.maxDuration()) {
+            throw new IllegalArgumentException("minDuration must not be greater than maxDuration");
+        }
+
+        Set<GENRE> genres = parseGenres(filter.genre(), filter.genres());
+        GenreMatch genreMatch = parseMatch(filter.match());
+        return FilmQuery.builder()
+                // whole calendar years: [Jan 1 of yearFrom, Jan 1 after yearTo)
+                .releasedFrom(yearFrom == null ? null : LocalDate.of(yearFrom, 1, 1))
+                .releasedBefore(yearTo == null ? null : LocalDate.of(yearTo + 1, 1, 1))
+                .genres(genres)
+                .genreMatch(genres != null && genres.size() > 1 ? genreMatch : null)
+                .rateAbove(filter.rate())
+                .minRate(filter.minRate())
+                .maxRate(filter.maxRate())
+                .minDuration(filter.minDuration())
+                .maxDuration(filter.maxDuration())
+                .sort(parseSort(filter.sort()))
+                .build();
+    }
+
+    // Mongo keeps milliseconds, so the value we return matches what is read back
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
     }
 
     private void validateYear(Integer year) {
@@ -112,48 +636,127 @@ public class FilmsService {
         }
     }
 
+    private Set<GENRE> parseGenres(List<String> genre, List<String> genres) {
+        Set<GENRE> parsed = EnumSet.noneOf(GENRE.class);
+        for (List<String> names : Arrays.asList(genre, genres)) {
+            if (names != null) {
+                for (String name : names) {
+                    parsed.add(parseGenre(name));
+                }
+            }
+        }
+        return parsed.isEmpty() ? null : parsed;
+    }
+
+    // with one genre any and all are the same query, so only a real ALL is kept
+    private GenreMatch parseMatch(String match) {
+        if (match == null || match.equalsIgnoreCase("any")) return null;
+        if (match.equalsIgnoreCase("all")) return GenreMatch.ALL;
+        throw new IllegalArgumentException("Invalid match: " + match);
+    }
+
     private GENRE parseGenre(String genre) {
-        if (genre == null) return null;
         try {
-            return GENRE.valueOf(genre);
+            return GENRE.valueOf(genre.strip());
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid genre: " + genre);
         }
     }
 
+    private Sort parseSort(List<String> sort) {
+        if (sort == null || sort.isEmpty()) return null;
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String field : sort) {
+            boolean descending = field.startsWith("-");
+            String property = descending ? field.substring(1) : field;
+            if (!SORT_FIELDS.contains(property)) {
+                throw new IllegalArgumentException("Invalid sort: " + field);
+            }
+            orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+        }
+        return Sort.by(orders);
+    }
+
     private void validateRate(Double rate) {
         if (rate != null && (rate < 0.0 || rate > 10.0)) {
             throw new IllegalArgumentException("Rate must be between 0.0 and 10.0: " + rate);
         }
     }
 
-    private List<Film> queryFilms(LocalDate start, LocalDate end, GENRE genre, Double rate) {
-
-        if (start != null && genre != null && rate != null) {
-            return filmsRepository.findFilmsByGenreAndRateAfterAndReleaseDateBetween(genre, rate, start, end);
+    private void validateDuration(Integer duration) {
+        if (duration != null && duration < 0) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
         }
+    }
 
-        if (start != null && genre != null) return filmsRepository.findFilmsByGenreAndReleaseDateBetween(genre, start, end);
-        if (start != null && rate != null) return filmsRepository.findFilmsByRateAfterAndReleaseDateBetween(rate, start, end);
-        if (genre != null && rate != null) return filmsRepository.findFilmsByGenreAndRateAfter(genre, rate);
+    public List<String> getHomepageImages() {
+        return getHomepageSnapshot().posters();
+    }
 
-        if (start != null) return filmsRepository.findFilmsByReleaseDateBetween(start, end);
-        if (genre != null) return filmsRepository.findFilmsByGenre(genre);
-        if (rate != null) return filmsRepository.findFilmsByRateAfter(rate);
+    // served from memory; only the first call of a day, or the first after a write inside the window,
+    // finds the snapshot outdated
+    public HomepageImages getHomepageSnapshot() {
+        HomepageImages snapshot = homepageImages.get();
+        if (isCurrent(snapshot)) {
+            return snapshot;
+        }
+        homepageLock.lock();
+        try {
+            // readers that queued behind a rebuild take its result
+            snapshot = homepageImages.get();
+            return isCurrent(snapshot) ? snapshot : rebuildHomepageImages();
+        } finally {
+            homepageLock.unlock();
+        }
+    }
 
-        return filmsRepository.findAll();
+    private boolean isCurrent(HomepageImages snapshot) {
+        return snapshot != null && !homepageStale.get() && snapshot.today().equals(LocalDate.now());
     }
 
+    public HomepageImages refreshHomepageImages() {
+        homepageLock.lock();
+        try {
+            return rebuildHomepageImages();
+        } finally {
+            homepageLock.unlock();
+        }
+    }
 
-    public List<String> getHomepageImages() {
+    // cleared before the query, so a write that lands during it marks the new snapshot stale again
+    private HomepageImages rebuildHomepageImages() {
+        homepageStale.set(false);
         LocalDate now = LocalDate.now();
         LocalDate start = now.minusMonths(1);
         LocalDate end = now.plusMonths(1);
 
         List<Film> films = filmsRepository.findFilmsByReleaseDateBetween(start, end);
 
-        return films.stream()
+        List<String> posters = films.stream()
                 .map(Film::poster)
                 .toList();
+
+        CRC32 crc = new CRC32();
+        crc.update(now.toString().getBytes(StandardCharsets.UTF_8));
+        posters.forEach(poster -> crc.update(String.valueOf(poster).getBytes(StandardCharsets.UTF_8)));
+        HomepageImages snapshot = new HomepageImages(now, start, end, posters,
+                "\"" + Long.toHexString(crc.getValue()) + "\"");
+        homepageImages.set(snapshot);
+        return snapshot;
+    }
+
+    // the window moves with the date; the interval also picks up writes made outside this service
+    @Scheduled(cron = "${films.homepage.refresh-cron:0 0 0 * * *}")
+    @Scheduled(fixedDelayString = "${films.homepage.refresh-interval:PT15M}")
+    public void scheduledHomepageRefresh() {
+        refreshHomepageImages();
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        HomepageImages snapshot = homepageImages.get();
+        if (snapshot != null && (snapshot.covers(event.before()) || snapshot.covers(event.after()))) {
+            homepageStale.set(true);
+        }
     }
 }
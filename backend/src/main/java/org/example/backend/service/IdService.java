@@ -1,12 +1,77 @@
 package org.example.backend.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
+// Ids for films and import jobs. ids.format picks one of:
+//  - uuid7 (default): RFC 9562 version 7 UUIDs, which start with the creation time in milliseconds,
+//    so new films are appended at the right edge of the _id index instead of landing on random pages
+//    of it. Within a thread and millisecond the 12 bits after the version count up, so a batch from
+//    generateIds is in index order too. The other 62 bits come from ThreadLocalRandom rather than
+//    the SecureRandom every UUID.randomUUID() call shares; ids are not secrets.
+//  - random: UUID.randomUUID(), as before
+// Both are 36-character strings, so stored ids, URLs and clients are unaffected by switching.
 @Service
 public class IdService {
+
+    static final int MAX_SEQUENCE = 0xFFF;
+    // a new millisecond starts in the lower half, leaving room to count up
+    private static final int SEQUENCE_START = 0x800;
+
+    // last millisecond used on this thread and the counter within it
+    private static final class Sequence {
+        long millis;
+        int counter;
+    }
+
+    private static final ThreadLocal<Sequence> SEQUENCES = ThreadLocal.withInitial(Sequence::new);
+
+    private final boolean timeOrdered;
+
+    public IdService(@Value("${ids.format:uuid7}") String format) {
+        this.timeOrdered = switch (format) {
+            case "uuid7" -> true;
+            case "random" -> false;
+            default -> throw new IllegalArgumentException("Unknown ids.format: " + format);
+        };
+    }
+
     public String generateId(){
-        return UUID.randomUUID().toString();
+        return (timeOrdered ? timeOrdered() : UUID.randomUUID()).toString();
+    }
+
+    public List<String> generateIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generateId());
+        }
+        return ids;
+    }
+
+    private static UUID timeOrdered() {
+        Sequence sequence = SEQUENCES.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        if (now > sequence.millis) {
+            sequence.millis = now;
+            sequence.counter = random.nextInt(SEQUENCE_START);
+        } else if (++sequence.counter > MAX_SEQUENCE) {
+            // out of counter values, or the clock went back: borrow the next millisecond as RFC 9562 allows
+            sequence.millis++;
+            sequence.counter = random.nextInt(SEQUENCE_START);
+        }
+        return uuid7(sequence.millis, sequence.counter, random.nextLong());
+    }
+
+    // 48 bits of time, version 7, 12 bits of counter, variant 10, 62 random bits
+    static UUID uuid7(long millis, int counter, long random) {
+        long high = millis << 16 | 0x7000 | counter & MAX_SEQUENCE;
+        long low = random & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L;
+        return new UUID(high, low);
     }
-}
\ No newline at end of file
+}
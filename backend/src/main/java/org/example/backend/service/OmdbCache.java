@@ -0,0 +1,194 @@
+package org.example.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.OmdbPriority;
+import org.example.backend.model.OmdbResult;
+import org.example.backend.model.Search;
+import org.example.backend.model.SearchResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// OMDb answers kept in memory, so repeat lookups cost neither latency nor API quota.
+// Movies are keyed by imdbID, searches by the trimmed, lower-cased title. Both caches are
+// bounded by the approximate number of characters they hold; Caffeine evicts by recency and frequency.
+// Concurrent misses for the same key share one load instead of each calling OMDb.
+// An answer older than its TTL is still served for omdb.cache.stale-for, marked stale, while a
+// background refresh fetches a new one; the same goes for a stale copy found in OmdbStore. So a slow
+// or failing OMDb only holds up lookups we have never answered before.
+// Metrics: cache.gets/puts/evictions{cache=omdb.movies|omdb.search}, omdb.cache.refreshes{result}.
+@Component
+public class OmdbCache {
+
+    // rough fixed cost of an entry besides its strings
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Logger log = LoggerFactory.getLogger(OmdbCache.class);
+
+    // an answer and when it came from OMDb
+    public record Entry<V>(V value, Instant fetchedAt) {
+    }
+
+    // where an answer comes from when memory has none: the stored copy, however old, or OMDb itself
+    public record Loader<V>(Supplier<Optional<Entry<V>>> stored, Function<OmdbPriority, V> remote) {
+    }
+
+    private final boolean enabled;
+    private final Duration movieTtl;
+    private final Duration searchTtl;
+    private final Cache<String, Entry<FilmDTO>> movies;
+    private final Cache<String, Entry<SearchResponse>> searches;
+    // loads run outside Caffeine's compute, which would hold a map lock for the whole HTTP call
+    private final SingleFlight<String, Entry<FilmDTO>> movieLoads = new SingleFlight<>();
+    private final SingleFlight<String, Entry<SearchResponse>> searchLoads = new SingleFlight<>();
+    // keys with a background refresh under way, so a burst of stale hits starts one
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter refreshed;
+    private final Counter refreshFailed;
+
+    public OmdbCache(@Value("${omdb.cache.enabled:true}") boolean enabled,
+                     @Value("${omdb.cache.max-weight:8000000}") long maxWeight,
+                     @Value("${omdb.cache.movie-ttl:24h}") Duration movieTtl,
+                     @Value("${omdb.cache.search-ttl:1h}") Duration searchTtl,
+                     @Value("${omdb.cache.stale-for:7d}") Duration staleFor,
+                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.movieTtl = movieTtl;
+        this.searchTtl = searchTtl;
+        this.movies = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, Entry<FilmDTO> entry) -> id.length() + weight(entry.value()))
+                .expireAfterWrite(movieTtl.plus(staleFor))
+                .recordStats()
+                .build();
+        this.searches = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String title, Entry<SearchResponse> entry) -> title.length() + weight(entry.value()))
+                .expireAfterWrite(searchTtl.plus(staleFor))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, movies, "omdb.movies");
+        CaffeineCacheMetrics.monitor(meterRegistry, searches, "omdb.search");
+        this.refreshed = Counter.builder("omdb.cache.refreshes").tag("result", "success").register(meterRegistry);
+        this.refreshFailed = Counter.builder("omdb.cache.refreshes").tag("result", "failure").register(meterRegistry);
+    }
+
+    // a loader that throws or returns null leaves nothing behind
+    public OmdbResult<FilmDTO> movie(String imdbId, OmdbPriority priority, Loader<FilmDTO> loader) {
+        return load(movies, movieLoads, movieTtl, "movie:" + imdbId, priority, loader);
+    }
+
+    public OmdbResult<SearchResponse> search(String title, OmdbPriority priority, Loader<SearchResponse> loader) {
+        return load(searches, searchLoads, searchTtl, "search:" + normalizeTitle(title), priority, loader);
+    }
+
+    private <V> OmdbResult<V> load(Cache<String, Entry<V>> cache, SingleFlight<String, Entry<V>> loads,
+                                   Duration ttl, String key, OmdbPriority priority, Loader<V> loader) {
+        Entry<V> entry = enabled ? cache.getIfPresent(key) : null;
+        if (entry == null) {
+            entry = loads.execute(key, () -> {
+                // a load that finished just before this one started has already filled the cache;
+                // read through asMap so the miss is not counted twice
+                Entry<V> loaded = enabled ? cache.asMap().get(key) : null;
+                if (loaded == null) {
+                    loaded = loader.stored().get().orElseGet(() -> fetch(loader, priority));
+                    remember(cache, key, loaded);
+                }
+                return loaded;
+            });
+        }
+        if (entry.value() == null || isFresh(entry, ttl)) {
+            return new OmdbResult<>(entry.value(), false);
+        }
+        refresh(cache, loads, key, loader);
+        return new OmdbResult<>(entry.value(), true);
+    }
+
+    // on a virtual thread and at background priority, so it neither holds up the caller
+    // nor competes with interactive lookups for the rate limit
+    private <V> void refresh(Cache<String, Entry<V>> cache, SingleFlight<String, Entry<V>> loads,
+                             String key, Loader<V> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        Thread.ofVirtual().name("omdb-refresh").start(() -> {
+            try {
+                loads.execute(key, () -> {
+                    Entry<V> fetched = fetch(loader, OmdbPriority.BACKGROUND);
+                    remember(cache, key, fetched);
+                    return fetched;
+                });
+                refreshed.increment();
+            } catch (RuntimeException e) {
+                refreshFailed.increment();
+                log.debug("Could not refresh OMDb answer {}: {}", key, e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private <V> Entry<V> fetch(Loader<V> loader, OmdbPriority priority) {
+        return new Entry<>(loader.remote().apply(priority), Instant.now());
+    }
+
+    private <V> void remember(Cache<String, Entry<V>> cache, String key, Entry<V> entry) {
+        if (enabled && entry.value() != null) {
+            cache.put(key, entry);
+        }
+    }
+
+    private static boolean isFresh(Entry<?> entry, Duration ttl) {
+        return entry.fetchedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    public void clear() {
+        movies.invalidateAll();
+        searches.invalidateAll();
+    }
+
+    long size() {
+        movies.cleanUp();
+        searches.cleanUp();
+        return movies.estimatedSize() + searches.estimatedSize();
+    }
+
+    static String normalizeTitle(String title) {
+        return title.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static int weight(FilmDTO film) {
+        return ENTRY_OVERHEAD + length(film.title()) + length(film.casts()) + length(film.poster())
+                + length(film.description());
+    }
+
+    private static int weight(SearchResponse response) {
+        int weight = ENTRY_OVERHEAD;
+        if (response.search() != null) {
+            for (Search search : response.search()) {
+                weight += ENTRY_OVERHEAD + length(search.title()) + length(search.imdbID())
+                        + length(search.poster());
+            }
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
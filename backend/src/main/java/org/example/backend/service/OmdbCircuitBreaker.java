@@ -0,0 +1,188 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.backend.exceptions.OmdbUnavailableException;
+import org.example.backend.model.OmdbPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Stops calling OMDb while it is failing, so requests are not each held up until the HTTP timeout.
+//  - for background callers, timeouts, connection errors, 5xx and 429 are retried up to
+//    omdb.retry.max-attempts times, sleeping a random time up to base-backoff * 2^attempt (capped at
+//    max-backoff) in between, and never past omdb.retry.max-elapsed after the first attempt
+//  - interactive callers get one attempt, so a request thread is held for at most one OMDb timeout;
+//    a stale answer is retried by the cache's background refresh instead
+//  - a call that still fails counts towards omdb.circuit.failure-threshold; that many in a row open
+//    the circuit and further calls fail at once with OmdbUnavailableException
+//  - after omdb.circuit.open-for a single trial call goes through; success closes the circuit again
+// Any other exception, e.g. a 404 or our own quota, is passed on untouched and says nothing about OMDb's health.
+// Metrics: omdb.circuit.state (0 closed, 1 half open, 2 open), omdb.circuit.retries, omdb.circuit.rejected.
+@Component
+public class OmdbCircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private static final Logger log = LoggerFactory.getLogger(OmdbCircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final long openForNanos;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long maxElapsedNanos;
+    private final Counter retries;
+    private final Counter rejected;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialRunning;
+
+    public OmdbCircuitBreaker(@Value("${omdb.circuit.failure-threshold:5}") int failureThreshold,
+                              @Value("${omdb.circuit.open-for:30s}") Duration openFor,
+                              @Value("${omdb.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${omdb.retry.base-backoff:100ms}") Duration baseBackoff,
+                              @Value("${omdb.retry.max-backoff:1s}") Duration maxBackoff,
+                              @Value("${omdb.retry.max-elapsed:10s}") Duration maxElapsed,
+                              MeterRegistry meterRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openForNanos = openFor.toNanos();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.maxElapsedNanos = maxElapsed.toNanos();
+        Gauge.builder("omdb.circuit.state", this, breaker -> breaker.state().ordinal()).register(meterRegistry);
+        this.retries = Counter.builder("omdb.circuit.retries")
+                .description("OMDb calls repeated after a transient failure")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("omdb.circuit.rejected")
+                .description("OMDb calls not made because the circuit was open")
+                .register(meterRegistry);
+    }
+
+    public <T> T call(OmdbPriority priority, Supplier<T> call) {
+        boolean trial = permit();
+        try {
+            T result = withRetries(priority, call);
+            succeeded();
+            return result;
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                failed(e);
+                throw new OmdbUnavailableException("OMDb is unavailable", retryAfter(), e);
+            }
+            // not OMDb's fault; a trial that ends this way proves nothing either way
+            if (trial) {
+                release();
+            }
+            throw e;
+        }
+    }
+
+    private <T> T withRetries(OmdbPriority priority, Supplier<T> call) {
+        int attempts = priority == OmdbPriority.INTERACTIVE ? 1 : maxAttempts;
+        long deadline = System.nanoTime() + maxElapsedNanos;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= attempts || !isTransient(e)) {
+                    throw e;
+                }
+                long backoff = backoff(attempt);
+                // a retry that could not even start before the deadline is not worth waiting for
+                if (System.nanoTime() + backoff >= deadline) {
+                    throw e;
+                }
+                retries.increment();
+                sleep(backoff);
+            }
+        }
+    }
+
+    // full jitter keeps many callers that failed together from retrying together
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openForNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    // true when this call is the half-open trial
+    private synchronized boolean permit() {
+        State current = state();
+        if (current == State.CLOSED) {
+            return false;
+        }
+        if (current == State.HALF_OPEN && !trialRunning) {
+            trialRunning = true;
+            return true;
+        }
+        rejected.increment();
+        throw new OmdbUnavailableException("OMDb is unavailable", retryAfter());
+    }
+
+    private synchronized void succeeded() {
+        if (state != State.CLOSED) {
+            log.info("OMDb circuit closed");
+        }
+        state = State.CLOSED;
+        failures = 0;
+        trialRunning = false;
+    }
+
+    private synchronized void failed(RuntimeException e) {
+        trialRunning = false;
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            log.warn("OMDb circuit opened after {} failed calls: {}", failures, e.getMessage());
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    private synchronized void release() {
+        trialRunning = false;
+    }
+
+    private synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ofSeconds(1);
+        }
+        return Duration.ofNanos(Math.max(0, openForNanos - (System.nanoTime() - openedAt)));
+    }
+
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof ResourceAccessException
+                || e instanceof HttpServerErrorException
+                || (e instanceof HttpStatusCodeException status
+                    && status.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying OMDb", e);
+        }
+    }
+}
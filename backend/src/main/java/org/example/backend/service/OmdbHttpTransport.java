@@ -0,0 +1,158 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// The HTTP client behind ClientApiService's calls to OMDb, and only those: other RestClients keep
+// Boot's defaults. omdb.http.transport picks one of:
+//  - pooled (default): Apache HttpClient with a bounded connection pool (max-connections, max-per-route),
+//    keep-alive up to time-to-live, idle connections closed after idle-timeout, and lease-timeout
+//    as the longest a call waits for a free connection; read-timeout bounds a silent socket
+//  - jdk: the JDK HttpClient, which negotiates HTTP/2 and multiplexes calls over one connection. It has
+//    no pool and no socket timeout, so the pool settings and read-timeout are rejected at startup
+//    rather than ignored, and no pool or lease metrics are recorded
+//  - default: whatever request factory the injected RestClient.Builder carries, e.g. the one
+//    MockRestServiceServer binds in tests
+// connect-timeout bounds opening a connection and response-timeout the wait for the response headers.
+// Retries are left to OmdbCircuitBreaker.
+// Metrics (pooled): httpcomponents.httpclient.pool.*{httpclient=omdb} for pool saturation and
+// omdb.http.lease for the time spent waiting for a connection.
+@Component
+public class OmdbHttpTransport {
+
+    static final List<String> POOLED_ONLY = List.of("omdb.http.max-connections", "omdb.http.max-per-route",
+            "omdb.http.read-timeout", "omdb.http.lease-timeout", "omdb.http.idle-timeout", "omdb.http.time-to-live");
+
+    private final AutoCloseable httpClient;
+    private final ClientHttpRequestFactory requestFactory;
+
+    public OmdbHttpTransport(@Value("${omdb.http.transport:pooled}") String transport,
+                             @Value("${omdb.http.max-connections:50}") int maxConnections,
+                             @Value("${omdb.http.max-per-route:20}") int maxPerRoute,
+                             @Value("${omdb.http.connect-timeout:2s}") Duration connectTimeout,
+                             @Value("${omdb.http.read-timeout:5s}") Duration readTimeout,
+                             @Value("${omdb.http.response-timeout:5s}") Duration responseTimeout,
+                             @Value("${omdb.http.lease-timeout:1s}") Duration leaseTimeout,
+                             @Value("${omdb.http.idle-timeout:30s}") Duration idleTimeout,
+                             @Value("${omdb.http.time-to-live:5m}") Duration timeToLive,
+                             MeterRegistry meterRegistry,
+                             Environment environment) {
+        switch (transport) {
+            case "pooled" -> {
+                TimedConnectionManager connectionManager = new TimedConnectionManager(meterRegistry);
+                connectionManager.setMaxTotal(maxConnections);
+                connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+                connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        // a connection the server may have closed meanwhile is checked before reuse
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build());
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "omdb").bindTo(meterRegistry);
+                CloseableHttpClient httpClient = HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .setDefaultRequestConfig(RequestConfig.custom()
+                                .setConnectionRequestTimeout(Timeout.of(leaseTimeout))
+                                .setResponseTimeout(Timeout.of(responseTimeout))
+                                .build())
+                        .evictExpiredConnections()
+                        .evictIdleConnections(TimeValue.of(idleTimeout))
+                        .disableAutomaticRetries()
+                        .build();
+                this.httpClient = httpClient;
+                this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+            }
+            case "jdk" -> {
+                List<String> unsupported = POOLED_ONLY.stream().filter(environment::containsProperty).toList();
+                if (!unsupported.isEmpty()) {
+                    throw new IllegalArgumentException("Not supported with omdb.http.transport=jdk: " + unsupported);
+                }
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .build();
+                JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+                factory.setReadTimeout(responseTimeout);
+                this.httpClient = httpClient;
+                this.requestFactory = factory;
+            }
+            case "default" -> {
+                this.httpClient = null;
+                this.requestFactory = null;
+            }
+            default -> throw new IllegalArgumentException("Unknown omdb.http.transport: " + transport);
+        }
+    }
+
+    // empty for transport=default
+    public Optional<ClientHttpRequestFactory> requestFactory() {
+        return Optional.ofNullable(requestFactory);
+    }
+
+    @PreDestroy
+    void close() throws Exception {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    // times how long each call waits for a pooled connection
+    static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer leaseTimer;
+
+        TimedConnectionManager(MeterRegistry meterRegistry) {
+            this.leaseTimer = Timer.builder("omdb.http.lease")
+                    .description("Time spent waiting for a pooled OMDb connection")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest lease = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return lease.get(timeout);
+                    } finally {
+                        leaseTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return lease.cancel();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.backend.service;
+
+import org.example.backend.model.GENRE;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Turns OMDb's free-text fields into FilmDTO values. Each parser scans the string once without
+// regexes, substrings or exceptions on the common shapes; anything unusual falls back to the
+// JDK parser, so results and errors are the same as before, only cheaper. Genres also recognise
+// OMDb's names for genres we call differently, e.g. "Science Fiction" or "Biography".
+public final class OmdbNormalizer {
+
+    private static final DateTimeFormatter RELEASED = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // OMDb's genre names and our own enum names, folded (lower case, '-' and ' ' as '_')
+    private static final GenreTable GENRES = new GenreTable();
+
+    static {
+        for (GENRE genre : GENRE.values()) {
+            GENRES.put(genre.name(), genre);
+        }
+        GENRES.put("Science Fiction", GENRE.SCI_FI);
+        GENRES.put("Biography", GENRE.DRAMA);
+        GENRES.put("Film-Noir", GENRE.THRILLER);
+        GENRES.put("Mystery", GENRE.THRILLER);
+        GENRES.put("Animated", GENRE.ANIMATION);
+    }
+
+    private OmdbNormalizer() {
+    }
+
+    // every digit in "136 min", so "N/A" and null are 0
+    public static Integer parseRuntime(String runtime) {
+        if (runtime == null) {
+            return 0;
+        }
+        int value = 0;
+        boolean any = false;
+        for (int i = 0; i < runtime.length(); i++) {
+            char c = runtime.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                    throw new NumberFormatException("Runtime out of range: " + runtime);
+                }
+                value = value * 10 + (c - '0');
+            }
+        }
+        return any ? value : 0;
+    }
+
+    // "31 Mar 1999"; blank is an IllegalArgumentException, anything unparseable a DateTimeParseException
+    public static LocalDate parseReleased(String released) {
+        if (released == null || released.isBlank()) {
+            throw new IllegalArgumentException("Released date cannot be null or blank");
+        }
+        if (released.length() == 11 && released.charAt(2) == ' ' && released.charAt(6) == ' ') {
+            int day = digits(released, 0, 2);
+            int month = month(released);
+            int year = digits(released, 7, 11);
+            if (day > 0 && month > 0 && year > 0
+                    && day <= LocalDate.of(year, month, 1).lengthOfMonth()) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        // odd shapes, impossible days and garbage: let the formatter decide, as it always has
+        return LocalDate.parse(released, RELEASED);
+    }
+
+    // null for "N/A", blank or anything that is not a number
+    public static Double parseRating(String rating) {
+        if (rating == null || rating.isEmpty() || rating.equalsIgnoreCase("N/A")) {
+            return null;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        int i = 0;
+        for (; i < rating.length(); i++) {
+            char c = rating.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+                if (digits > 15) {
+                    break;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+        // up to 15 digits over an exact power of ten divides to the correctly rounded double
+        if (i == rating.length() && digits > 0) {
+            return mantissa / POWERS_OF_TEN[Math.max(fraction, 0)];
+        }
+        try {
+            return Double.parseDouble(rating);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // the first genre we know in "Action, Sci-Fi", or null
+    public static GENRE parseGenre(String genres) {
+        if (genres == null) {
+            return null;
+        }
+        int start = 0;
+        while (start <= genres.length()) {
+            int end = genres.indexOf(',', start);
+            if (end < 0) {
+                end = genres.length();
+            }
+            GENRE genre = GENRES.get(genres, start, end);
+            if (genre != null) {
+                return genre;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    // every genre we know, in order and without repeats
+    public static List<GENRE> parseGenres(String genres) {
+        List<GENRE> parsed = new ArrayList<>(2);
+        if (genres == null) {
+            return parsed;
+        }
+        int start = 0;
+        while (start <= genres.length()) {
+            int end = genres.indexOf(',', start);
+            if (end < 0) {
+                end = genres.length();
+            }
+            GENRE genre = GENRES.get(genres, start, end);
+            if (genre != null && !parsed.contains(genre)) {
+                parsed.add(genre);
+            }
+            start = end + 1;
+        }
+        return parsed;
+    }
+
+    // -1 unless every char is an ASCII digit
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    // 1-12 for "Jan".."Dec" at index 3, matched case-sensitively like the formatter; 0 otherwise
+    private static int month(String value) {
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (value.regionMatches(3, MONTHS[m], 0, 3)) {
+                return m + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Open-addressing table looked up by a slice of the input, so no key string is built per lookup.
+    private static final class GenreTable {
+
+        private final String[] keys = new String[64];
+        private final GENRE[] values = new GENRE[64];
+
+        void put(String name, GENRE genre) {
+            String key = fold(name, 0, name.length());
+            int slot = hash(key, 0, key.length());
+            while (keys[slot] != null && !keys[slot].equals(key)) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = key;
+            values[slot] = genre;
+        }
+
+        // trims the slice like String.trim and compares it folded, matching what valueOf accepted before
+        GENRE get(String text, int from, int to) {
+            while (from < to && text.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && text.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (from == to) {
+                return null;
+            }
+            for (int slot = hash(text, from, to); keys[slot] != null; slot = (slot + 1) & (keys.length - 1)) {
+                if (matches(keys[slot], text, from, to)) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private static boolean matches(String key, String text, int from, int to) {
+            if (key.length() != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != fold(text.charAt(from + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int hash(String text, int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + fold(text.charAt(i));
+            }
+            return (hash ^ (hash >>> 16)) & (keys.length - 1);
+        }
+
+        private static String fold(String text, int from, int to) {
+            StringBuilder folded = new StringBuilder(to - from);
+            for (int i = from; i < to; i++) {
+                folded.append(fold(text.charAt(i)));
+            }
+            return folded.toString();
+        }
+
+        private static char fold(char c) {
+            if (c >= 'A' && c <= 'Z') {
+                return (char) (c + ('a' - 'A'));
+            }
+            return c == '-' || c == ' ' ? '_' : c;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.backend.exceptions.OmdbQuotaException;
+import org.example.backend.model.OmdbPriority;
+import org.example.backend.model.OmdbUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Gate in front of every OMDb call.
+//  - a token bucket (omdb.rate.per-second, omdb.rate.burst) smooths bursts; callers wait for a token,
+//    interactive ones first, and are turned away at once when omdb.rate.max-waiting are already queued,
+//    or after omdb.rate.max-wait (interactive) or omdb.rate.background-max-wait (background) in the queue
+//  - the daily quota (omdb.quota.daily) is counted per UTC day in omdbUsage, shared by all instances;
+//    background work stops omdb.quota.interactive-reserve calls early so searches keep working.
+//    Each instance reserves omdb.quota.block-size calls at a time, so only one call in a block waits
+//    for Mongo, and gives back what it has not used at day rollover and on shutdown. Until then the
+//    reserved calls count as used for every other instance.
+// Metrics: omdb.quota.used/remaining, omdb.rate.waiting{priority}, omdb.rate.rejected{reason}.
+@Component
+public class OmdbRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(OmdbRateLimiter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final double tokensPerNano;
+    private final int burst;
+    private final int maxWaiting;
+    private final long maxWaitNanos;
+    private final long backgroundMaxWaitNanos;
+    private final long dailyQuota;
+    private final long interactiveReserve;
+    private final int blockSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // guarded by lock
+    private double tokens;
+    private long refilledAt;
+    private final Map<OmdbPriority, Integer> waiting = new EnumMap<>(OmdbPriority.class);
+
+    // last known count for today, including calls reserved but not made yet
+    private final AtomicReference<OmdbUsage> usage = new AtomicReference<>(new OmdbUsage("", 0));
+    // this instance's block of reserved calls; written under reservationLock, which may be held across
+    // the Mongo round trip that reserves the next block
+    private final ReentrantLock reservationLock = new ReentrantLock();
+    private volatile String blockDay = "";
+    private volatile long blockLeft;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rejectedQuota;
+
+    public OmdbRateLimiter(MongoTemplate mongoTemplate,
+                           @Value("${omdb.rate.per-second:5}") double perSecond,
+                           @Value("${omdb.rate.burst:10}") int burst,
+                           @Value("${omdb.rate.max-waiting:50}") int maxWaiting,
+                           @Value("${omdb.rate.max-wait:5s}") Duration maxWait,
+                           @Value("${omdb.rate.background-max-wait:60s}") Duration backgroundMaxWait,
+                           @Value("${omdb.quota.daily:1000}") long dailyQuota,
+                           @Value("${omdb.quota.interactive-reserve:100}") long interactiveReserve,
+                           @Value("${omdb.quota.block-size:50}") int blockSize,
+                           MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxWaiting = maxWaiting;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.backgroundMaxWaitNanos = backgroundMaxWait.toNanos();
+        this.dailyQuota = dailyQuota;
+        this.interactiveReserve = interactiveReserve;
+        this.blockSize = blockSize;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+
+        Gauge.builder("omdb.quota.used", this, OmdbRateLimiter::usedToday).register(meterRegistry);
+        Gauge.builder("omdb.quota.remaining", this, OmdbRateLimiter::remainingToday).register(meterRegistry);
+        for (OmdbPriority priority : OmdbPriority.values()) {
+            waiting.put(priority, 0);
+            Gauge.builder("omdb.rate.waiting", this, limiter -> limiter.waiting(priority))
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.rejectedQueueFull = rejected(meterRegistry, "queue_full");
+        this.rejectedTimeout = rejected(meterRegistry, "timeout");
+        this.rejectedQuota = rejected(meterRegistry, "quota");
+    }
+
+    @PostConstruct
+    public void loadUsage() {
+        String today = today();
+        try {
+            OmdbUsage stored = mongoTemplate.findById(today, OmdbUsage.class);
+            usage.set(stored != null ? stored : new OmdbUsage(today, 0));
+        } catch (DataAccessException e) {
+            log.warn("Could not load OMDb usage: {}", e.getMessage());
+        }
+    }
+
+    // blocks until the call may go out; throws OmdbQuotaException instead of waiting without end
+    public void acquire(OmdbPriority priority) {
+        if (remainingToday() <= floor(priority)) {
+            rejectedQuota.increment();
+            throw quotaExhausted();
+        }
+        takeToken(priority);
+        count(priority);
+    }
+
+    // the calls left in this instance's block are reserved, not used
+    long usedToday() {
+        OmdbUsage current = usage.get();
+        if (!current.id().equals(today())) {
+            return 0;
+        }
+        return Math.max(0, current.count() - (blockDay.equals(current.id()) ? blockLeft : 0));
+    }
+
+    long remainingToday() {
+        return Math.max(0, dailyQuota - usedToday());
+    }
+
+    private void takeToken(OmdbPriority priority) {
+        long deadline = System.nanoTime()
+                + (priority == OmdbPriority.INTERACTIVE ? maxWaitNanos : backgroundMaxWaitNanos);
+        lock.lock();
+        try {
+            if (waiting.get(priority) >= maxWaiting) {
+                rejectedQueueFull.increment();
+                throw new OmdbQuotaException("Too many OMDb lookups waiting", Duration.ofSeconds(1));
+            }
+            waiting.merge(priority, 1, Integer::sum);
+            try {
+                while (true) {
+                    refill();
+                    boolean turn = priority == OmdbPriority.INTERACTIVE
+                            || waiting.get(OmdbPriority.INTERACTIVE) == 0;
+                    if (turn && tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        rejectedTimeout.increment();
+                        throw new OmdbQuotaException("Timed out waiting for OMDb", Duration.ofSeconds(1));
+                    }
+                    long nanos = (long) Math.ceil(Math.max(1 - tokens, 0.01) / tokensPerNano);
+                    changed.awaitNanos(Math.min(nanos, left));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for OMDb", e);
+            } finally {
+                waiting.merge(priority, -1, Integer::sum);
+                // a departing interactive caller may be what background callers were waiting for
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    // one call out of this instance's block, reserving a new block when it is used up
+    private void count(OmdbPriority priority) {
+        String today = today();
+        reservationLock.lock();
+        try {
+            if (!blockDay.equals(today)) {
+                release();
+                blockDay = today;
+            }
+            if (blockLeft == 0) {
+                blockLeft = reserve(today, priority);
+            }
+            blockLeft--;
+        } finally {
+            reservationLock.unlock();
+        }
+    }
+
+    // The increment is the reservation: whoever pushes the count over the limit takes the excess back
+    // and keeps what fits. Called with reservationLock held.
+    private long reserve(String today, OmdbPriority priority) {
+        Query query = byDay(today);
+        long limit = dailyQuota - floor(priority);
+        try {
+            OmdbUsage counted = mongoTemplate.findAndModify(query, new Update().inc("count", blockSize),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), OmdbUsage.class);
+            int granted = blockSize;
+            if (counted != null && counted.count() > limit) {
+                int excess = (int) Math.min(blockSize, counted.count() - limit);
+                counted = mongoTemplate.findAndModify(query, new Update().inc("count", -excess),
+                        FindAndModifyOptions.options().returnNew(true), OmdbUsage.class);
+                granted -= excess;
+            }
+            usage.set(counted);
+            if (granted == 0) {
+                rejectedQuota.increment();
+                throw quotaExhausted();
+            }
+            return granted;
+        } catch (DataAccessException e) {
+            // accounting must not take OMDb lookups down with it
+            log.warn("Could not count OMDb usage: {}", e.getMessage());
+            usage.updateAndGet(current -> current.id().equals(today)
+                    ? new OmdbUsage(today, current.count() + 1)
+                    : new OmdbUsage(today, 1));
+            return 1;
+        }
+    }
+
+    @PreDestroy
+    public void releaseReservation() {
+        reservationLock.lock();
+        try {
+            release();
+        } finally {
+            reservationLock.unlock();
+        }
+    }
+
+    // gives the unused rest of the block back to the day it was reserved for; called with reservationLock held
+    private void release() {
+        long left = blockLeft;
+        if (left == 0) {
+            return;
+        }
+        blockLeft = 0;
+        try {
+            OmdbUsage returned = mongoTemplate.findAndModify(byDay(blockDay), new Update().inc("count", (int) -left),
+                    FindAndModifyOptions.options().returnNew(true), OmdbUsage.class);
+            if (returned != null) {
+                usage.set(returned);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not give back {} reserved OMDb calls: {}", left, e.getMessage());
+        }
+    }
+
+    private long floor(OmdbPriority priority) {
+        return priority == OmdbPriority.BACKGROUND ? interactiveReserve : 0;
+    }
+
+    private int waiting(OmdbPriority priority) {
+        lock.lock();
+        try {
+            return waiting.get(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static OmdbQuotaException quotaExhausted() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        Duration untilMidnight = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC));
+        return new OmdbQuotaException("OMDb daily quota used up", untilMidnight);
+    }
+
+    private static Query byDay(String day) {
+        return Query.query(Criteria.where("_id").is(day));
+    }
+
+    private static String today() {
+        return LocalDate.now(ZoneOffset.UTC).toString();
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("omdb.rate.rejected")
+                .description("OMDb calls turned away by the rate limiter")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.backend.model.MovieDetails;
+import org.example.backend.model.OmdbResponse;
+import org.example.backend.model.SearchResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// OMDb responses persisted in Mongo behind OmdbCache, so a restart or another instance does not
+// start cold. Expiry is left to the TTL index on fetchedAt. Writes run on one background thread
+// and are dropped when it falls behind; a lost write only costs a later OMDb call.
+// Errors from Mongo are logged and read as a miss, never failing the lookup.
+@Component
+public class OmdbStore {
+
+    static final String MOVIE = "movie:";
+    static final String SEARCH = "search:";
+
+    private static final Logger log = LoggerFactory.getLogger(OmdbStore.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final ThreadPoolExecutor writer;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter dropped;
+
+    public OmdbStore(MongoTemplate mongoTemplate,
+                     @Value("${omdb.store.enabled:true}") boolean enabled,
+                     @Value("${omdb.store.queue-size:1000}") int queueSize,
+                     MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("omdb-store-writer").daemon().factory());
+        this.hits = Counter.builder("omdb.store.gets").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("omdb.store.gets").tag("result", "miss").register(meterRegistry);
+        this.dropped = Counter.builder("omdb.store.dropped")
+                .description("Responses not persisted because the write queue was full")
+                .register(meterRegistry);
+    }
+
+    // with when it was fetched, so the caller can tell whether it is still fresh
+    public Optional<OmdbCache.Entry<MovieDetails>> findMovie(String imdbId) {
+        return find(MOVIE + imdbId, OmdbResponse::movie);
+    }
+
+    public Optional<OmdbCache.Entry<SearchResponse>> findSearch(String title) {
+        return find(SEARCH + OmdbCache.normalizeTitle(title), OmdbResponse::search);
+    }
+
+    // error answers come back without an imdbID and are not kept
+    public void saveMovie(String imdbId, MovieDetails movie) {
+        if (movie != null && movie.imdbID() != null) {
+            save(new OmdbResponse(MOVIE + imdbId, movie, null, Instant.now()));
+        }
+    }
+
+    // only successful searches; "Response": "False" also covers quota and key errors
+    public void saveSearch(String title, SearchResponse search) {
+        if (search != null && "True".equalsIgnoreCase(search.response())) {
+            save(new OmdbResponse(SEARCH + OmdbCache.normalizeTitle(title), null, search, Instant.now()));
+        }
+    }
+
+    private <T> Optional<OmdbCache.Entry<T>> find(String id, Function<OmdbResponse, T> part) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            Optional<OmdbCache.Entry<T>> found = Optional.ofNullable(mongoTemplate.findById(id, OmdbResponse.class))
+                    .filter(response -> part.apply(response) != null && response.fetchedAt() != null)
+                    .map(response -> new OmdbCache.Entry<>(part.apply(response), response.fetchedAt()));
+            (found.isPresent() ? hits : misses).increment();
+            return found;
+        } catch (DataAccessException e) {
+            log.warn("Could not read stored OMDb response {}: {}", id, e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    private void save(OmdbResponse response) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            writer.execute(() -> {
+                try {
+                    mongoTemplate.save(response);
+                } catch (DataAccessException e) {
+                    log.warn("Could not store OMDb response {}: {}", response.id(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    // lets queued writes finish on a normal shutdown
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
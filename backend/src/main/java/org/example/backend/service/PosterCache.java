@@ -0,0 +1,188 @@
+package org.example.backend.service;
+
+import org.example.backend.model.CachedPoster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Poster images on disk, fetched once per source URL.
+//   blobs/<sha256 of content>   the image; URLs serving the same bytes share one file
+//   refs/<sha256 of url>        content hash, content type and URL, so the cache survives restarts
+//   variants/<hash>-<width>.jpg resized copies written by PosterThumbnails, removed with their blob
+// Entries are evicted least recently used first once the blobs exceed the byte budget.
+@Component
+public class PosterCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PosterCache.class);
+
+    private final PosterFetcher posterFetcher;
+    private final Path blobs;
+    private final Path refs;
+    private final Path variants;
+    private final long maxBytes;
+
+    // guarded by this; access order gives the LRU
+    private final LinkedHashMap<String, CachedPoster> byUrl = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> urlsPerBlob = new HashMap<>();
+    private long totalBytes;
+
+    public PosterCache(PosterFetcher posterFetcher,
+                       @Value("${posters.cache-dir:${java.io.tmpdir}/filmdb-posters}") Path directory,
+                       @Value("${posters.cache-max-bytes:536870912}") long maxBytes) throws IOException {
+        this.posterFetcher = posterFetcher;
+        this.blobs = Files.createDirectories(directory.resolve("blobs"));
+        this.refs = Files.createDirectories(directory.resolve("refs"));
+        this.variants = Files.createDirectories(directory.resolve("variants"));
+        this.maxBytes = maxBytes;
+        loadRefs();
+    }
+
+    public Optional<CachedPoster> get(String url) {
+        synchronized (this) {
+            CachedPoster cached = byUrl.get(url);
+            if (cached != null && Files.exists(cached.file())) {
+                return Optional.of(cached);
+            }
+        }
+
+        // fetched outside the lock; two concurrent misses both download, the blob is written once
+        PosterFetcher.Download download;
+        try {
+            download = posterFetcher.fetch(url);
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Poster {} not cached: {}", url, e.getMessage());
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(store(url, download));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path variantFile(CachedPoster poster, int width) {
+        return variants.resolve(poster.hash() + "-" + width + ".jpg");
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private CachedPoster store(String url, PosterFetcher.Download download) throws IOException {
+        String hash = sha256(download.bytes());
+        Path blob = blobs.resolve(hash);
+        if (!Files.exists(blob)) {
+            Path temp = Files.createTempFile(blobs, hash, ".tmp");
+            Files.write(temp, download.bytes());
+            Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        CachedPoster poster = new CachedPoster(blob, hash, download.contentType(), download.bytes().length);
+        Files.writeString(refs.resolve(sha256(url.getBytes(StandardCharsets.UTF_8))),
+                hash + "\n" + download.contentType() + "\n" + url);
+
+        synchronized (this) {
+            CachedPoster previous = byUrl.put(url, poster);
+            if (previous != null) {
+                release(previous);
+            }
+            retain(poster);
+            evict();
+        }
+        return poster;
+    }
+
+    private void retain(CachedPoster poster) {
+        if (urlsPerBlob.merge(poster.hash(), 1, Integer::sum) == 1) {
+            totalBytes += poster.size();
+        }
+    }
+
+    private void release(CachedPoster poster) {
+        if (urlsPerBlob.merge(poster.hash(), -1, Integer::sum) == 0) {
+            urlsPerBlob.remove(poster.hash());
+            totalBytes -= poster.size();
+            try {
+                Files.deleteIfExists(poster.file());
+                for (int width : PosterThumbnails.WIDTHS) {
+                    Files.deleteIfExists(variantFile(poster, width));
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete cached poster {}: {}", poster.file(), e.getMessage());
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, CachedPoster>> eldest = byUrl.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedPoster> entry = eldest.next();
+            eldest.remove();
+            release(entry.getValue());
+            try {
+                Files.deleteIfExists(refs.resolve(sha256(entry.getKey().getBytes(StandardCharsets.UTF_8))));
+            } catch (IOException e) {
+                log.warn("Could not delete poster ref for {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    // oldest refs first, so the restored LRU order follows when posters were cached
+    private void loadRefs() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(refs)) {
+            files = stream.sorted(Comparator.comparing(PosterCache::lastModified)).toList();
+        }
+        for (Path ref : files) {
+            List<String> lines = Files.readAllLines(ref);
+            Path blob = lines.size() == 3 ? blobs.resolve(lines.get(0)) : null;
+            if (blob == null || !Files.exists(blob)) {
+                Files.deleteIfExists(ref);
+                continue;
+            }
+            CachedPoster poster = new CachedPoster(blob, lines.get(0), lines.get(1), Files.size(blob));
+            synchronized (this) {
+                byUrl.put(lines.get(2), poster);
+                retain(poster);
+            }
+        }
+        synchronized (this) {
+            evict();
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
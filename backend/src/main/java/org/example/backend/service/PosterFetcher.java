@@ -0,0 +1,198 @@
+package org.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Downloads poster images for PosterCache. Poster URLs come from users and OMDb, so every hop
+// (including redirects) must be http(s) to a public address, optionally on an allow-list,
+// and the body must be a bounded image. The addresses are checked in the client's DNS resolver,
+// so a connection goes to exactly the address that was checked, not to a second lookup's answer.
+// TIMEOUT bounds each connect and each read, and the whole download including the body.
+@Component
+public class PosterFetcher {
+
+    private static final int MAX_REDIRECTS = 3;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final CloseableHttpClient httpClient;
+    private final long maxPosterBytes;
+    private final Set<String> allowedHosts;
+
+    public PosterFetcher(@Value("${posters.max-poster-bytes:5242880}") long maxPosterBytes,
+                         @Value("${posters.allowed-hosts:}") String allowedHosts) {
+        this.maxPosterBytes = maxPosterBytes;
+        this.allowedHosts = Arrays.stream(allowedHosts.split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .map(host -> host.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setDnsResolver(new PublicDnsResolver())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(TIMEOUT))
+                                .setSocketTimeout(Timeout.of(TIMEOUT))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(TIMEOUT))
+                        .build())
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .disableCookieManagement()
+                .build();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    public Download fetch(String url) throws IOException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        URI uri = URI.create(url);
+        for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+            checkAllowed(uri);
+            HttpGet request = new HttpGet(uri);
+            try (ClassicHttpResponse response = httpClient.executeOpen(null, request, null)) {
+                Hop next;
+                try {
+                    next = read(uri, response, deadline);
+                } catch (IOException e) {
+                    // drops the connection rather than draining whatever the server still sends
+                    request.cancel();
+                    throw e;
+                }
+                if (next.download() != null) {
+                    return next.download();
+                }
+                request.cancel();
+                uri = next.redirect();
+            }
+        }
+        throw new IOException("Too many redirects for " + url);
+    }
+
+    private Hop read(URI uri, ClassicHttpResponse response, long deadline) throws IOException {
+        int status = response.getCode();
+        if (status >= 300 && status < 400) {
+            Header location = response.getFirstHeader("Location");
+            if (location == null) {
+                throw new IOException("Redirect without Location from " + uri);
+            }
+            return new Hop(null, uri.resolve(location.getValue()));
+        }
+        if (status != 200) {
+            throw new IOException("Poster request to " + uri + " returned " + status);
+        }
+        Header contentTypeHeader = response.getFirstHeader("Content-Type");
+        String contentType = contentTypeHeader == null ? "" : contentTypeHeader.getValue();
+        if (!contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+            throw new IOException("Not an image: " + uri + " (" + contentType + ")");
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new IOException("Poster response without a body: " + uri);
+        }
+        if (entity.getContentLength() > maxPosterBytes) {
+            throw new IOException("Poster larger than " + maxPosterBytes + " bytes: " + uri);
+        }
+        return new Hop(new Download(readBody(uri, entity, deadline), contentType.split(";")[0].trim()), null);
+    }
+
+    // the socket timeout bounds a silent server, the deadline one that trickles the body
+    byte[] readBody(URI uri, HttpEntity entity, long deadline) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream body = entity.getContent()) {
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                bytes.write(buffer, 0, read);
+                if (bytes.size() > maxPosterBytes) {
+                    throw new IOException("Poster larger than " + maxPosterBytes + " bytes: " + uri);
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IOException("Poster download took longer than " + TIMEOUT + ": " + uri);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // the addresses themselves are checked when the connection resolves the host
+    void checkAllowed(URI uri) throws IOException {
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw new IOException("Unsupported poster URL scheme: " + uri);
+        }
+        String host = uri.getHost();
+        if (host == null) {
+            throw new IOException("Poster URL without host: " + uri);
+        }
+        if (!allowedHosts.isEmpty() && !allowedHosts.contains(host.toLowerCase(Locale.ROOT))) {
+            throw new IOException("Poster host not allowed: " + host);
+        }
+    }
+
+    // refuses names pointing at internal addresses, and hands the connection the addresses it checked
+    static InetAddress[] resolvePublic(String host) throws UnknownHostException {
+        InetAddress[] addresses = SystemDefaultDnsResolver.INSTANCE.resolve(host);
+        for (InetAddress address : addresses) {
+            if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                    || address.isSiteLocalAddress() || address.isMulticastAddress() || isUniqueLocal(address)) {
+                throw new UnknownHostException("Poster host resolves to a private address: " + host);
+            }
+        }
+        return addresses;
+    }
+
+    // fc00::/7, which isSiteLocalAddress does not cover
+    private static boolean isUniqueLocal(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc;
+    }
+
+    private static class PublicDnsResolver implements DnsResolver {
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            return resolvePublic(host);
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+        }
+    }
+
+    // either the poster or where the response redirects to
+    private record Hop(Download download, URI redirect) {
+    }
+
+    public record Download(byte[] bytes, String contentType) {
+    }
+}
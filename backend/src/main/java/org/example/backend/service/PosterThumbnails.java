@@ -0,0 +1,232 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.backend.model.CachedPoster;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Fixed-width JPEG copies of cached posters, so cards download a few KB instead of the original,
+// plus a tiny PNG data: URI stored on the film to show while the poster loads.
+// Work runs on a small bounded pool; when its queue is full the job is dropped and redone
+// the next time a missing variant is asked for, so bulk imports never block request threads.
+// posters.thumbnails.max-pixels caps what a downloaded poster may declare before it is decoded.
+@Component
+public class PosterThumbnails {
+
+    public static final List<Integer> WIDTHS = List.of(160, 320, 640);
+    static final int PLACEHOLDER_WIDTH = 12;
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private static final Logger log = LoggerFactory.getLogger(PosterThumbnails.class);
+
+    private final PosterCache posterCache;
+    private final FilmsService filmsService;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Counter dropped;
+    // film id + url, so a burst of requests for a missing variant queues one job
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public PosterThumbnails(PosterCache posterCache,
+                            FilmsService filmsService,
+                            @Value("${posters.thumbnails.workers:2}") int workers,
+                            @Value("${posters.thumbnails.queue-size:500}") int queueSize,
+                            @Value("${posters.thumbnails.max-pixels:40000000}") long maxPixels,
+                            MeterRegistry meterRegistry) {
+        this.posterCache = posterCache;
+        this.filmsService = filmsService;
+        this.maxPixels = maxPixels;
+        this.dropped = Counter.builder("posters.thumbnails.dropped")
+                .description("Thumbnail jobs discarded because the queue was full")
+                .register(meterRegistry);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("poster-thumbnails-", 0).daemon().factory());
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        Film after = event.after();
+        String before = event.before() == null ? null : event.before().poster();
+        if (after != null && hasPoster(after.poster()) && !Objects.equals(before, after.poster())) {
+            submit(after.id(), after.poster());
+        }
+    }
+
+    public void submit(String filmId, String url) {
+        String job = filmId + " " + url;
+        if (!pending.add(job)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(filmId, url);
+                } finally {
+                    pending.remove(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(job);
+            dropped.increment();
+        }
+    }
+
+    // the smallest variant at least as wide as asked for, or the widest one
+    public static int variantWidth(int requested) {
+        if (requested <= 0) {
+            throw new IllegalArgumentException("Invalid width: " + requested);
+        }
+        return WIDTHS.stream().filter(width -> width >= requested).findFirst().orElse(WIDTHS.getLast());
+    }
+
+    public Optional<Path> variant(CachedPoster poster, int width) {
+        Path file = posterCache.variantFile(poster, width);
+        return Files.exists(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    void generate(String filmId, String url) {
+        Optional<CachedPoster> cached = posterCache.get(url);
+        if (cached.isEmpty()) {
+            return;
+        }
+        CachedPoster poster = cached.get();
+        try {
+            BufferedImage image = read(poster.file());
+            if (image == null) {
+                log.debug("Poster {} is not a format ImageIO can read", url);
+                return;
+            }
+            for (int width : WIDTHS) {
+                Path file = posterCache.variantFile(poster, width);
+                if (!Files.exists(file)) {
+                    // never upscaled; narrow originals are re-encoded at their own width
+                    writeJpeg(resize(image, Math.min(width, image.getWidth())), file);
+                }
+            }
+            filmsService.setPosterPlaceholder(filmId, url, placeholder(image));
+        } catch (IOException e) {
+            log.warn("Could not create thumbnails for {}: {}", url, e.getMessage());
+        }
+    }
+
+    // The size comes from the header first: a few KB of PNG or JPEG can declare billions of pixels.
+    // Larger posters are refused, the rest decoded subsampled to no less than the widest variant.
+    BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = stream == null ? Collections.emptyIterator() : ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Poster of " + width + "x" + height + " pixels is over the limit");
+                }
+                int step = Math.max(1, width / WIDTHS.getLast());
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static String placeholder(BufferedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(resize(image, PLACEHOLDER_WIDTH), "png", png);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray());
+    }
+
+    // halving first keeps bilinear scaling from skipping most source pixels on large reductions
+    static BufferedImage resize(BufferedImage image, int width) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2);
+        }
+        return draw(current, width);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width) {
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // transparent PNG posters get a white background instead of JPEG's black
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp);
+             ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean hasPoster(String url) {
+        return url != null && !url.isBlank() && !url.equals("N/A");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -7,6 +7,9 @@ import org.example.backend.model.FilmDTO;
 import org.example.backend.model.GENRE;
 import org.example.backend.repository.FilmsRepository;
 import org.example.backend.service.ClientApiService;
+import org.example.backend.service.FilmFacetCounts;
+import org.example.backend.service.FilmsService;
+import org.example.backend.service.OmdbCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -15,28 +18,39 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureMockRestServiceServer;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -55,11 +69,17 @@ class FilmControllerTest {
     private MockRestServiceServer mockRestServiceServer;
     @Autowired
     private ClientApiService clientApiService;
-
+    @Autowired
+    private FilmFacetCounts filmFacetCounts;
+    @Autowired
+    private FilmsService filmsService;
+    @Autowired
+    private OmdbCache omdbCache;
 
     @BeforeEach
     void cleanDb() {
         filmsRepository.deleteAll();
+        omdbCache.clear();
     }
 
     @Test
@@ -189,6 +209,98 @@ class FilmControllerTest {
     }
 
 
+    @Test
+    void updateFilm_changedMainGenre_dropsThePreviousOne() throws Exception {
+        // given
+        filmsRepository.save(new Film("123", "The Mask", LocalDate.of(1994,7,29),
+                6.9, "Jim Carrey", GENRE.COMEDY, 101, "mask.jpg", "description"));
+
+        // when + then: the edit form sends back the genres it read along with the new genre
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/films/{id}", "123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"genre\": \"DRAMA\", \"genres\": [\"COMEDY\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genre").value("DRAMA"))
+                .andExpect(jsonPath("$.genres", contains("DRAMA")));
+
+        Film stored = filmsRepository.findById("123").orElseThrow();
+        assertThat(stored.genres()).containsExactly(GENRE.DRAMA);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/films/filter").param("genre", "COMEDY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void updateFilm_withIfMatch_rejectsStaleVersion() throws Exception {
+        // given
+        filmsRepository.save(new Film("123", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description", 4L, Instant.EPOCH));
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/films/{id}", "123")
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rate\": 9.0}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.rate").value(9.0))
+                .andExpect(jsonPath("$.casts").value("Leonardo DiCaprio"));
+
+        // a second writer still holding version 4 does not overwrite the first
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/films/{id}", "123")
+                        .header(HttpHeaders.IF_MATCH, "\"4-card\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rate\": 7.0}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/films/{id}", "123")
+                        .header(HttpHeaders.IF_MATCH, "version 5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rate\": 7.0}"))
+                .andExpect(status().isBadRequest());
+
+        Film stored = filmsRepository.findById("123").orElseThrow();
+        assertThat(stored.rate()).isEqualTo(9.0);
+        assertThat(stored.version()).isEqualTo(5L);
+    }
+
+    @Test
+    void bulkChanges_byIdsAndFilter_returnCounts() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description"));
+        filmsRepository.save(new Film("3", "Toy Story 3", LocalDate.of(2010,12,31),
+                8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description"));
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/films")
+                        .param("ids", "1,2,missing")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"genre\": \"DRAMA\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(2))
+                .andExpect(jsonPath("$.modified").value(2));
+        assertThat(filmsRepository.findById("2").orElseThrow().genres()).contains(GENRE.DRAMA, GENRE.ACTION);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/films/filter")
+                        .param("genre", "DRAMA")
+                        .param("yearTo", "2009"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(1))
+                .andExpect(jsonPath("$.modified").value(1));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/films/filter"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/films").param("ids", "1,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modified").value(2));
+
+        assertThat(filmsRepository.findAll()).isEmpty();
+    }
+
     @Test
     void updateFilm_nonExistingId_returnsNotFound() throws Exception {
         FilmDTO updatedFilmDTO = new FilmDTO(
@@ -213,6 +325,52 @@ class FilmControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void saveFilms_writesBatchAndReportsEachFilm() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+                8.5, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+        String batchJson = """
+                [{"title": "Inception", "releaseDate": "16-07-2010", "rate": 8.8},
+                 {"title": "The Dark Knight", "releaseDate": "18-07-2008", "genre": "ACTION"},
+                 {"title": ""}]
+                """;
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/films/batch")
+                        .param("upsert", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].id").value("1"))
+                .andExpect(jsonPath("$.items[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.items[1].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[2].status").value("FAILED"));
+
+        assertThat(filmsRepository.findAll()).hasSize(2);
+        assertThat(filmsRepository.findById("1").orElseThrow().rate()).isEqualTo(8.8);
+    }
+
+    @Test
+    void addFilm_sameTitleAndReleaseDate_returnsConflict() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+                8.5, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Inception", "releaseDate": "16-07-2010", "rate": 8.8}
+                                """))
+                .andExpect(status().isConflict());
+
+        assertThat(filmsRepository.findAll()).hasSize(1);
+    }
+
     @Test
     void addFilm_withNullTitle_returnsBadRequest() throws Exception {
         FilmDTO filmDTO = new FilmDTO(
@@ -320,6 +478,353 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$[0].title").value("The Dark Knight"));
     }
 
+    @Test
+    void getFilmsByFilter_withGenresRateRangeAndSort_returnsSortedFilms() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,1,1),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description"));
+        filmsRepository.save(new Film("3", "Toy Story 3", LocalDate.of(2010,12,31),
+                8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description"));
+
+        // when + then
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genre", "SCI_FI,ACTION")
+                        .param("minRate", "8.8")
+                        .param("sort", "-rate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("The Dark Knight"))
+                .andExpect(jsonPath("$[1].title").value("Inception"));
+
+        // both ends of the year are included
+        mockMvc.perform(get("/api/films/filter")
+                        .param("year", "2010")
+                        .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Inception"))
+                .andExpect(jsonPath("$[1].title").value("Toy Story 3"));
+
+        mockMvc.perform(get("/api/films/filter")
+                        .param("minDuration", "140")
+                        .param("maxDuration", "150"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Inception"));
+    }
+
+    @Test
+    void getFacets_countsEachFacetWithTheOtherFilters() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description"));
+        filmsRepository.save(new Film("3", "Toy Story 3", LocalDate.of(2010,6,18),
+                8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description"));
+        filmFacetCounts.reload();
+
+        // when + then
+        mockMvc.perform(get("/api/films/facets")
+                        .param("year", "2010"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.genres.SCI_FI").value(1))
+                .andExpect(jsonPath("$.genres.ACTION").doesNotExist())
+                .andExpect(jsonPath("$.years.2008").value(1))
+                .andExpect(jsonPath("$.years.2010").value(2))
+                .andExpect(jsonPath("$.rates.8").value(2));
+    }
+
+    @Test
+    void getFacets_afterAddFilm_countsNewFilmWithoutReload() throws Exception {
+        filmFacetCounts.reload();
+        FilmDTO filmDTO = new FilmDTO("Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filmDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/films/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.genres.SCI_FI").value(1));
+    }
+
+    @Test
+    void getFilterShape_returnsQueryWithoutValues() throws Exception {
+        mockMvc.perform(get("/api/films/filter/shape")
+                        .param("genre", "SCI_FI")
+                        .param("year", "2010")
+                        .param("sort", "-rate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filter.genre").value("?"))
+                .andExpect(jsonPath("$.filter.releaseDate.$gte").value("?"))
+                .andExpect(jsonPath("$.sort.rate").value(-1))
+                .andExpect(jsonPath("$.sort._id").value(1));
+    }
+
+    @Test
+    void getFilmsByFilter_withGenresMatchAll_returnsFilmsWithEveryGenre() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,1,1),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description")
+                .withGenres(GENRE.SCI_FI, Set.of(GENRE.ACTION, GENRE.THRILLER)));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description"));
+
+        // when + then
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genres", "ACTION,THRILLER")
+                        .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genres", "ACTION,THRILLER")
+                        .param("match", "all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Inception"))
+                .andExpect(jsonPath("$[0].genres.length()").value(3));
+
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genres", "ACTION,THRILLER")
+                        .param("match", "some"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilmsByFilter_withLimitAndSortByRate_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/films/filter")
+                        .param("limit", "10")
+                        .param("sort", "-rate"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilms_withLimit_walksPagesByCursor() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("2", "Alien", LocalDate.of(1979,5,25),
+                8.5, "Sigourney Weaver", GENRE.HORROR, 117, "https://example.com/alien.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("3", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "https://example.com/dark_knight.jpg",
+                "This film is about ..."));
+
+        // when + then
+        String response = mockMvc.perform(get("/api/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films.length()").value(2))
+                .andExpect(jsonPath("$.films[0].title").value("Alien"))
+                .andExpect(jsonPath("$.films[1].title").value("Inception"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = new ObjectMapper().readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/films").param("limit", "2").param("after", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films.length()").value(1))
+                .andExpect(jsonPath("$.films[0].title").value("The Dark Knight"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getFilmsByFilter_withLimit_returnsFilteredPage() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "https://example.com/dark_knight.jpg",
+                "This film is about ..."));
+
+        // when + then
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genre", "ACTION")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films.length()").value(1))
+                .andExpect(jsonPath("$.films[0].title").value("The Dark Knight"));
+    }
+
+    @Test
+    void getFilms_withInvalidCursor_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/films").param("limit", "2").param("after", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilms_withNdjsonAccept_streamsOneFilmPerLine() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "https://example.com/dark_knight.jpg",
+                "This film is about ..."));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/films").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(body).contains("\"title\":\"Inception\"", "\"title\":\"The Dark Knight\"");
+    }
+
+    @Test
+    void getFilmsByFilter_withNdjsonAccept_streamsMatchingFilms() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "https://example.com/dark_knight.jpg",
+                "This film is about ..."));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/films/filter")
+                        .param("genre", "ACTION")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("The Dark Knight")))
+                .andExpect(content().string(not(containsString("Inception"))));
+    }
+
+    @Test
+    void getFilms_withCardView_returnsOnlyCardFields() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+
+        // when + then
+        mockMvc.perform(get("/api/films").param("view", "card"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Inception"))
+                .andExpect(jsonPath("$[0].releaseDate").value("16-07-2010"))
+                .andExpect(jsonPath("$[0].poster").value("https://example.com/inception.jpg"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].casts").doesNotExist());
+
+        mockMvc.perform(get("/api/films/{id}", "1").param("view", "card"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(8.8))
+                .andExpect(jsonPath("$.description").doesNotExist());
+    }
+
+    @Test
+    void getFilmsByFilter_withCardView_returnsProjectedFilms() throws Exception {
+        // given
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ..."));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008,7,18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "https://example.com/dark_knight.jpg",
+                "This film is about ..."));
+
+        // when + then
+        mockMvc.perform(get("/api/films/filter")
+                        .param("genre", "ACTION")
+                        .param("view", "card"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("The Dark Knight"))
+                .andExpect(jsonPath("$[0].genre").doesNotExist());
+    }
+
+    @Test
+    void getFilms_withInvalidView_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/films").param("view", "poster"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilms_withMatchingEtag_returnsNotModified() throws Exception {
+        // given
+        String etag = mockMvc.perform(get("/api/films"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // when + then
+        mockMvc.perform(get("/api/films").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/films").param("view", "card").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getFilms_afterWrite_etagChanges() throws Exception {
+        // given
+        String etag = mockMvc.perform(get("/api/films"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        FilmDTO filmDTO = new FilmDTO("Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ...");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filmDTO)))
+                .andExpect(status().isCreated());
+
+        // when + then
+        mockMvc.perform(get("/api/films").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void getFilmById_withMatchingEtag_returnsNotModified() throws Exception {
+        // given
+        FilmDTO filmDTO = new FilmDTO("Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
+                "This film is about ...");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        String created = mockMvc.perform(MockMvcRequestBuilders.post("/api/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filmDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(created).get("id").asText();
+
+        // when + then
+        mockMvc.perform(get("/api/films/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().exists("Last-Modified"));
+
+        mockMvc.perform(get("/api/films/{id}", id).header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void getFilmsByFilter_withNoParams_returnsAllFilms() throws Exception {
         // given
@@ -430,6 +935,7 @@ class FilmControllerTest {
         filmsRepository.save(film1);
         filmsRepository.save(film2);
         filmsRepository.save(film3);
+        filmsService.refreshHomepageImages();
 
         // when + then
         mockMvc.perform(get("/api/homepage_images"))
@@ -450,6 +956,7 @@ class FilmControllerTest {
                 "This film is about ...");
         filmsRepository.save(oldFilm1);
         filmsRepository.save(oldFilm2);
+        filmsService.refreshHomepageImages();
 
         // when + then
         mockMvc.perform(get("/api/homepage_images"))
@@ -459,11 +966,37 @@ class FilmControllerTest {
 
     @Test
     void getHomepageImages_whenNoFilms_returnsEmptyList() throws Exception {
+        filmsService.refreshHomepageImages();
+
         mockMvc.perform(get("/api/homepage_images"))
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    void getHomepageImages_withMatchingETag_returnsNotModifiedUntilFilmInWindowChanges() throws Exception {
+        filmsService.refreshHomepageImages();
+        String etag = mockMvc.perform(get("/api/homepage_images"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/homepage_images").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        FilmDTO filmDTO = new FilmDTO("Recent Movie", LocalDate.now().minusDays(3), 7.5, "Actor",
+                GENRE.DRAMA, 120, "https://example.com/recent.jpg", "This film is about ...");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filmDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/homepage_images").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("https://example.com/recent.jpg"));
+    }
+
     @Test
     void getFilmsByTitleFromApiClient() throws Exception {
         mockRestServiceServer
@@ -569,6 +1102,69 @@ class FilmControllerTest {
 
     }
 
+    @Test
+    void getFilmsByIdFromApiClient_repeatedLookup_callsApiOnce() throws Exception {
+        // given
+        mockRestServiceServer
+                .expect(ExpectedCount.once(), requestTo("?apikey=key&i=tt0133093"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("""
+                        {
+                            "Title": "The Matrix",
+                            "Released": "31 Mar 1999",
+                            "Runtime": "136 min",
+                            "Genre": "Action, Sci-Fi",
+                            "imdbID": "tt0133093"
+                        }
+                        """, MediaType.APPLICATION_JSON));
+
+        // when + then
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/search/{imdbID}", "tt0133093"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("The Matrix"));
+        }
+        mockRestServiceServer.verify();
+    }
+
+    @Test
+    void getFilmsByTitleFromApiClient_sameTitleDifferentCase_callsApiOnce() throws Exception {
+        // given
+        mockRestServiceServer
+                .expect(ExpectedCount.once(), requestTo("?apikey=key&type=movie&s=Matrix"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("""
+                        {
+                            "Search": [{"Title": "The Matrix", "Year": "1999", "imdbID": "tt0133093"}],
+                            "totalResults": "1",
+                            "Response": "True"
+                        }
+                        """, MediaType.APPLICATION_JSON));
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/search").param("title", "Matrix"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/search").param("title", "  MATRIX "))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Search[0].imdbID").value("tt0133093"));
+        mockRestServiceServer.verify();
+    }
+
+    @Test
+    void getFilmsByTitleFromApiClient_whenApiFails_returnsServiceUnavailableWithoutRetrying() throws Exception {
+        // given: searches are interactive, so a failure is not retried on the request thread
+        mockRestServiceServer
+                .expect(ExpectedCount.once(), requestTo("?apikey=key&type=movie&s=Matrix"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withServerError());
+
+        // when + then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/search").param("title", "Matrix"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().exists("Retry-After"));
+        mockRestServiceServer.verify();
+    }
+
     @Test
     void getFilmsByIdFromApiClient_whenDurationIsWrong_returnsFilm() throws Exception {
         String imdbID = "tt0133093";
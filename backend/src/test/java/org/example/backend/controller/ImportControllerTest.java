@@ -0,0 +1,96 @@
+package org.example.backend.controller;
+
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.OmdbPriority;
+import org.example.backend.repository.FilmsRepository;
+import org.example.backend.service.ClientApiService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "testuser")
+class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FilmsRepository filmsRepository;
+
+    @MockitoBean
+    private ClientApiService clientApiService;
+
+    @BeforeEach
+    void cleanDb() {
+        filmsRepository.deleteAll();
+    }
+
+    @Test
+    void startImport_importsFilmsAndReportsProgress() throws Exception {
+        // given
+        when(clientApiService.getMovieById("tt0133093", OmdbPriority.BACKGROUND)).thenReturn(new FilmDTO("The Matrix",
+                LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves", GENRE.ACTION, 136, "matrix.jpg", "description"));
+        when(clientApiService.getMovieById("tt0000000", OmdbPriority.BACKGROUND))
+                .thenThrow(new IllegalArgumentException("Incorrect IMDb ID."));
+
+        // when
+        String location = mockMvc.perform(post("/api/imports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"imdbIds": ["tt0133093", "tt0000000"]}
+                                """))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("/api/imports/")))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.imdbIds").doesNotExist())
+                .andReturn().getResponse().getHeader("Location");
+
+        // then
+        // the job runs in the background
+        for (int i = 0; i < 50 && mockMvc.perform(get(location)).andReturn().getResponse()
+                .getContentAsString().contains("\"RUNNING\""); i++) {
+            Thread.sleep(100);
+        }
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.resumeFrom").value(2))
+                .andExpect(jsonPath("$.failures[0].imdbId").value("tt0000000"));
+        assertEquals("The Matrix", filmsRepository.findAll().getFirst().title());
+    }
+
+    @Test
+    void startImport_invalidId_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/imports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"imdbIds": ["matrix"]}
+                                """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getImport_unknownJob_returnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/imports/{id}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.backend.controller;
+
+import org.example.backend.model.Film;
+import org.example.backend.model.GENRE;
+import org.example.backend.repository.FilmsRepository;
+import org.example.backend.service.PosterFetcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "testuser")
+class PosterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FilmsRepository filmsRepository;
+
+    @MockitoBean
+    private PosterFetcher posterFetcher;
+
+    @BeforeEach
+    void cleanDb() {
+        filmsRepository.deleteAll();
+    }
+
+    @Test
+    void getPoster_servesCachedImageWithETag() throws Exception {
+        // given
+        String url = "https://example.com/" + UUID.randomUUID() + ".jpg";
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, url, "description"));
+        byte[] image = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x01, 0x02};
+        when(posterFetcher.fetch(url)).thenReturn(new PosterFetcher.Download(image, "image/jpeg"));
+
+        // when + then
+        String etag = mockMvc.perform(get("/api/posters/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(image))
+                .andExpect(header().string("Cache-Control", "max-age=604800, private"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/posters/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getPoster_unreachablePoster_returnsNotFound() throws Exception {
+        String url = "https://example.com/" + UUID.randomUUID() + ".jpg";
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, url, "description"));
+        when(posterFetcher.fetch(url)).thenThrow(new IOException("Not an image"));
+
+        mockMvc.perform(get("/api/posters/1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getPoster_filmWithoutPoster_returnsNotFound() throws Exception {
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "N/A", "description"));
+
+        mockMvc.perform(get("/api/posters/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/posters/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getPoster_withWidthBeforeVariantExists_servesOriginal() throws Exception {
+        // given
+        String url = "https://example.com/" + UUID.randomUUID() + ".jpg";
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010,7,16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, url, "description"));
+        byte[] image = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x03, 0x04};
+        when(posterFetcher.fetch(url)).thenReturn(new PosterFetcher.Download(image, "image/jpeg"));
+
+        // when + then
+        mockMvc.perform(get("/api/posters/1").param("width", "320"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void getPoster_invalidWidth_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/posters/1").param("width", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.backend.repository;
+
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.GenreMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FilmIndexesTest {
+
+    private static final LocalDate FROM = LocalDate.of(2010, 1, 1);
+    private static final LocalDate BEFORE = LocalDate.of(2011, 1, 1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private FilmsRepository filmsRepository;
+    @Autowired
+    private FilmIndexVerifier filmIndexVerifier;
+
+    @BeforeEach
+    void setUp() {
+        filmsRepository.deleteAll();
+        filmsRepository.save(new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description"));
+        filmsRepository.save(new Film("2", "The Dark Knight", LocalDate.of(2008, 7, 18),
+                9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description"));
+        filmsRepository.save(new Film("3", "Toy Story 3", LocalDate.of(2010, 6, 18),
+                8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description"));
+    }
+
+    static Stream<FilmQuery> filterPaths() {
+        return Stream.of(
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).build(),
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI, GENRE.ACTION)).build(),
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI, GENRE.ACTION)).genreMatch(GenreMatch.ALL).build(),
+                FilmQuery.builder().releasedFrom(FROM).releasedBefore(BEFORE).build(),
+                FilmQuery.builder().rateAbove(8.5).build(),
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).rateAbove(8.5).build(),
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).releasedFrom(FROM).releasedBefore(BEFORE).build(),
+                FilmQuery.builder().rateAbove(8.5).releasedFrom(FROM).releasedBefore(BEFORE).build(),
+                FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).rateAbove(8.5)
+                        .releasedFrom(FROM).releasedBefore(BEFORE).build(),
+                FilmQuery.builder().minRate(8.0).maxRate(9.0).build());
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterPaths")
+    void filterQuery_usesIndexScan(FilmQuery filmQuery) {
+        Query query = FilmQueryMapper.toMongoQuery(filmQuery);
+
+        Document explain = mongoTemplate.getCollection("dbFilms")
+                .find(query.getQueryObject())
+                .sort(query.getSortObject())
+                .explain();
+        String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+
+        assertThat(winningPlan).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void verify_recreatesDroppedIndex() {
+        mongoTemplate.indexOps(Film.class).dropIndex("rate");
+        assertThat(filmIndexVerifier.missingIndexes(filmIndexVerifier.expectedIndexes())).containsExactly("rate");
+
+        filmIndexVerifier.verify();
+
+        assertThat(filmIndexVerifier.missingIndexes(filmIndexVerifier.expectedIndexes())).isEmpty();
+    }
+}
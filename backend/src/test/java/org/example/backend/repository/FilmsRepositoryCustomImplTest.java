@@ -0,0 +1,287 @@
+package org.example.backend.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FilmsRepositoryCustomImplTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final FilmsRepositoryCustomImpl repository = new FilmsRepositoryCustomImpl(mongoTemplate);
+
+    private Query query;
+    private Document set;
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+    }
+
+    private void findAndUpdate(Long version, FilmDTO changes) {
+        repository.findAndUpdate("123", version, changes, NOW);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<FindAndModifyOptions> optionsCaptor = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(),
+                optionsCaptor.capture(), eq(Film.class));
+        assertFalse(optionsCaptor.getValue().isReturnNew());
+        query = queryCaptor.getValue();
+        set = toSetStage(updateCaptor.getValue());
+    }
+
+    // the single $set stage of the pipeline update
+    private static Document toSetStage(UpdateDefinition update) {
+        List<Document> pipeline = ((AggregationUpdate) update).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(1, pipeline.size());
+        return pipeline.getFirst().get("$set", Document.class);
+    }
+
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    @Test
+    void findAndUpdate_setsOnlyGivenFields() {
+        findAndUpdate(4L, new FilmDTO(" ", null, 9.0, null, null, 150, null, null));
+
+        assertEquals(new Document("_id", "123").append("version", 4L), query.getQueryObject());
+        assertEquals(new Document("version", new Document("$add",
+                        List.of(new Document("$ifNull", List.of("$version", 0)), 1)))
+                        .append("updatedAt", literal(Date.from(NOW)))
+                        .append("rate", literal(9.0))
+                        .append("duration", literal(150)),
+                set);
+    }
+
+    @Test
+    void findAndUpdate_noExpectedVersion_matchesOnlyTheId() {
+        findAndUpdate(null, new FilmDTO(null, null, 9.0, null, null, null, null, null));
+
+        assertEquals(new Document("_id", "123"), query.getQueryObject());
+    }
+
+    @Test
+    void findAndUpdate_valuesAreLiterals() {
+        findAndUpdate(1L, new FilmDTO("$title", LocalDate.of(2010, 7, 16), null, null, null, null, null, null));
+
+        assertEquals(literal("$title"), set.get("title"));
+        assertEquals(literal(Date.from(Instant.parse("2010-07-16T00:00:00Z"))), set.get("releaseDate"));
+    }
+
+    @Test
+    void findAndUpdate_poster_keepsPlaceholderOnlyForTheSamePoster() {
+        findAndUpdate(1L, new FilmDTO(null, null, null, null, null, null, "new.jpg", null));
+
+        assertEquals(literal("new.jpg"), set.get("poster"));
+        assertEquals(new Document("$cond", List.of(
+                        new Document("$eq", List.of("$poster", literal("new.jpg"))), "$posterPlaceholder", "$$REMOVE")),
+                set.get("posterPlaceholder"));
+    }
+
+    @Test
+    void findAndUpdate_noPoster_leavesPlaceholderAlone() {
+        findAndUpdate(1L, new FilmDTO(null, null, 9.0, null, null, null, null, null));
+
+        assertFalse(set.containsKey("poster"));
+        assertFalse(set.containsKey("posterPlaceholder"));
+    }
+
+    @Test
+    void findAndUpdate_genreOnly_replacesTheStoredMainGenre() {
+        findAndUpdate(1L, new FilmDTO(null, null, null, null, GENRE.ACTION, null, null, null));
+
+        Document genre = literal("ACTION");
+        Document genres = new Document("$setUnion", List.of(
+                new Document("$setDifference", List.of(new Document("$ifNull", List.of("$genres", List.of())),
+                        Collections.singletonList("$genre"))),
+                List.of(genre)));
+        assertEquals(genre, set.get("genre"));
+        assertEquals(genres, set.get("genres"));
+        assertEquals(genres, set.get("genreMask", Document.class).get("$reduce", Document.class).get("input"));
+    }
+
+    @Test
+    void findAndUpdate_genreMissingFromGivenGenres_replacesTheStoredMainGenreAmongThem() {
+        // what an edit form sends after changing the main genre of the film it read
+        findAndUpdate(1L, new FilmDTO(null, null, null, null, GENRE.DRAMA, null, null, null,
+                Set.of(GENRE.COMEDY)));
+
+        assertEquals(new Document("$setUnion", List.of(
+                        new Document("$setDifference", List.of(literal(List.of("COMEDY")),
+                                Collections.singletonList("$genre"))),
+                        List.of(literal("DRAMA")))),
+                set.get("genres"));
+    }
+
+    @Test
+    void findAndUpdate_genres_replaceTheStoredSet() {
+        findAndUpdate(1L, new FilmDTO(null, null, null, null, null, null, null, null,
+                Set.of(GENRE.THRILLER, GENRE.DRAMA)));
+
+        assertEquals(literal("DRAMA"), set.get("genre"));
+        assertEquals(literal(List.of("DRAMA", "THRILLER")), set.get("genres"));
+        assertEquals(literal(GENRE.mask(List.of(GENRE.DRAMA, GENRE.THRILLER))), set.get("genreMask"));
+    }
+
+    @Test
+    void updateFilms_appliesSameChangesToEveryId() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Film.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        FilmDTO changes = new FilmDTO(null, null, 9.0, null, null, null, "new.jpg", null);
+
+        assertEquals(2, repository.updateFilms(List.of("1", "2"), changes, NOW));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateMulti(queryCaptor.capture(), updateCaptor.capture(), eq(Film.class));
+        assertEquals(new Document("_id", new Document("$in", List.of("1", "2")))
+                        .append("updatedAt", new Document("$not", new Document("$gt", NOW))),
+                queryCaptor.getValue().getQueryObject());
+        Document set = toSetStage(updateCaptor.getValue());
+        assertEquals(literal(9.0), set.get("rate"));
+        // the placeholder is dropped in the same write
+        assertTrue(set.containsKey("posterPlaceholder"));
+    }
+
+    @Test
+    void updateFilms_byQuery_writesOnTheCriteriaAlone() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Film.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null));
+        FilmQuery filmQuery = FilmQuery.builder().genres(Set.of(GENRE.DRAMA)).build();
+
+        assertEquals(3, repository.updateFilms(filmQuery,
+                new FilmDTO(null, null, 9.0, null, null, null, null, null), NOW));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(queryCaptor.capture(), any(UpdateDefinition.class), eq(Film.class));
+        assertEquals(new Document("genres", GENRE.DRAMA)
+                        .append("updatedAt", new Document("$not", new Document("$gt", NOW))),
+                queryCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    void deleteFilms_byQuery_leavesOutFilmsWrittenSince() {
+        when(mongoTemplate.remove(any(Query.class), eq(Film.class))).thenReturn(DeleteResult.acknowledged(2));
+        FilmQuery filmQuery = FilmQuery.builder().genres(Set.of(GENRE.DRAMA)).build();
+
+        assertEquals(2, repository.deleteFilms(filmQuery, NOW));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(queryCaptor.capture(), eq(Film.class));
+        assertEquals(new Document("genres", GENRE.DRAMA)
+                        .append("updatedAt", new Document("$not", new Document("$gt", NOW))),
+                queryCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    void findEventStates_readsOnlyTheEventFields() {
+        repository.findEventStates(FilmQuery.builder().genres(Set.of(GENRE.DRAMA)).build(), 11);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Film.class));
+        assertEquals(11, queryCaptor.getValue().getLimit());
+        assertEquals(Set.of(FilmsRepositoryCustomImpl.EVENT_FIELDS),
+                queryCaptor.getValue().getFieldsObject().keySet());
+    }
+
+    @Test
+    void setPosterPlaceholder_matchesTheSamePosterAndSetsOnlyThePlaceholder() {
+        repository.setPosterPlaceholder("123", "poster.jpg", "data:image/png;base64,AAAA");
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(queryCaptor.capture(), updateCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(Film.class));
+        assertEquals(new Document("_id", "123").append("poster", "poster.jpg")
+                        .append("posterPlaceholder", new Document("$ne", "data:image/png;base64,AAAA")),
+                queryCaptor.getValue().getQueryObject());
+        assertEquals(new Document("$set", new Document("posterPlaceholder", "data:image/png;base64,AAAA")),
+                updateCaptor.getValue().getUpdateObject());
+    }
+
+    @Test
+    void findEventStatesUpdatedAt_readsOnlyTheGivenIds() {
+        repository.findEventStatesUpdatedAt(List.of("1", "2"), NOW);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Film.class));
+        assertEquals(new Document("_id", new Document("$in", List.of("1", "2"))).append("updatedAt", NOW),
+                queryCaptor.getValue().getQueryObject());
+    }
+
+    @Test
+    void bulkWrite_replace_isMatchedOnTheVersionRead() {
+        Film film = new Film("7", "The Matrix", LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves",
+                GENRE.ACTION, 136, "matrix.jpg", "description", 4L, NOW);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Film.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        assertEquals(Map.of(), repository.bulkWrite(List.of(film), Map.of("7", 3L)));
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulk).replaceOne(queryCaptor.capture(), eq(film));
+        assertEquals(new Document("_id", "7").append("version", 3L), queryCaptor.getValue().getQueryObject());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Film.class));
+    }
+
+    @Test
+    void bulkWrite_filmChangedSinceItWasRead_reportsAConflict() {
+        Film matrix = new Film("7", "The Matrix", LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves",
+                GENRE.ACTION, 136, "matrix.jpg", "description", 4L, NOW);
+        Film memento = matrix.withId("8").withTitle("Memento");
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Film.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        // a concurrent PUT took 8 to version 4 first
+        when(mongoTemplate.find(any(Query.class), eq(Film.class)))
+                .thenReturn(List.of(matrix, memento.withUpdatedAt(NOW.minusMillis(1))));
+
+        Map<Integer, String> failures = repository.bulkWrite(List.of(matrix, memento), Map.of("7", 3L, "8", 3L));
+
+        assertEquals(Map.of(1, "Film 8 changed since it was read"), failures);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.backend.service;
+
+import org.example.backend.model.CatalogVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CatalogVersionService service = new CatalogVersionService(mongoTemplate);
+
+    private static CatalogVersion version(long version) {
+        return new CatalogVersion(CatalogVersionService.FILMS, version, Instant.ofEpochSecond(version));
+    }
+
+    @Test
+    void getFilmsVersion_readsMongoOnce() {
+        when(mongoTemplate.findById(CatalogVersionService.FILMS, CatalogVersion.class)).thenReturn(version(3));
+
+        assertEquals(version(3), service.getFilmsVersion());
+        assertEquals(version(3), service.getFilmsVersion());
+        verify(mongoTemplate, times(1)).findById(CatalogVersionService.FILMS, CatalogVersion.class);
+    }
+
+    @Test
+    void bumpFilmsVersion_isAnsweredFromMemory() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CatalogVersion.class))).thenReturn(version(4));
+
+        service.bumpFilmsVersion();
+
+        assertEquals(version(4), service.getFilmsVersion());
+        verify(mongoTemplate, times(0)).findById(any(), any());
+    }
+
+    @Test
+    void refreshFilmsVersion_readBeforeABump_keepsTheBump() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CatalogVersion.class))).thenReturn(version(5));
+        when(mongoTemplate.findById(CatalogVersionService.FILMS, CatalogVersion.class))
+                .thenReturn(version(4), version(6));
+
+        service.bumpFilmsVersion();
+        service.refreshFilmsVersion();
+        assertEquals(version(5), service.getFilmsVersion());
+
+        // another instance bumped in the meantime
+        service.refreshFilmsVersion();
+        assertEquals(version(6), service.getFilmsVersion());
+    }
+}
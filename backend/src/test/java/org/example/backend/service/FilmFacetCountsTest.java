@@ -0,0 +1,142 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmFacets;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.GenreMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmFacetCountsTest {
+
+    private final Film inception = new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+            8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+    private final Film darkKnight = new Film("2", "The Dark Knight", LocalDate.of(2008, 7, 18),
+            9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description");
+    private final Film toyStory = new Film("3", "Toy Story 3", LocalDate.of(2010, 6, 18),
+            8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description");
+
+    private FilmFacetCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        counts = new FilmFacetCounts(null);
+        counts.onFilmChanged(new FilmChangedEvent(null, inception));
+        counts.onFilmChanged(new FilmChangedEvent(null, darkKnight));
+        counts.onFilmChanged(new FilmChangedEvent(null, toyStory));
+    }
+
+    @Test
+    void count_withoutFilter_countsEveryFacet() {
+        FilmFacets facets = counts.count(FilmQuery.ALL);
+
+        assertEquals(3, facets.total());
+        assertEquals(Map.of(GENRE.SCI_FI, 1L, GENRE.ACTION, 1L, GENRE.ANIMATION, 1L), facets.genres());
+        assertEquals(Map.of(2008, 1L, 2010, 2L), facets.years());
+        assertEquals(Map.of(8, 2L, 9, 1L), facets.rates());
+    }
+
+    @Test
+    void count_withFilter_countsEachFacetWithTheOtherFilters() {
+        FilmQuery query = FilmQuery.builder()
+                .genres(Set.of(GENRE.SCI_FI))
+                .releasedFrom(LocalDate.of(2010, 1, 1))
+                .releasedBefore(LocalDate.of(2011, 1, 1))
+                .build();
+
+        FilmFacets facets = counts.count(query);
+
+        assertEquals(1, facets.total());
+        // genres ignore the genre filter, years ignore the year filter
+        assertEquals(Map.of(GENRE.SCI_FI, 1L, GENRE.ANIMATION, 1L), facets.genres());
+        assertEquals(Map.of(2010, 1L), facets.years());
+        assertEquals(Map.of(8, 1L), facets.rates());
+    }
+
+    @Test
+    void count_multiGenreFilm_countsUnderEachGenre() {
+        counts.onFilmChanged(new FilmChangedEvent(inception,
+                inception.withGenres(GENRE.SCI_FI, Set.of(GENRE.ACTION, GENRE.THRILLER))));
+
+        FilmQuery all = FilmQuery.builder().genres(Set.of(GENRE.ACTION, GENRE.THRILLER))
+                .genreMatch(GenreMatch.ALL).build();
+        FilmFacets facets = counts.count(all);
+
+        assertEquals(1, facets.total());
+        assertEquals(Map.of(GENRE.SCI_FI, 1L, GENRE.ACTION, 2L, GENRE.THRILLER, 1L, GENRE.ANIMATION, 1L),
+                facets.genres());
+        assertEquals(Map.of(2010, 1L), facets.years());
+        assertEquals(2, counts.count(all.toBuilder().genreMatch(null).build()).total());
+    }
+
+    @Test
+    void count_rateAbove_isExclusive() {
+        assertEquals(1, counts.count(FilmQuery.builder().rateAbove(8.8).build()).total());
+        assertEquals(2, counts.count(FilmQuery.builder().minRate(8.3).maxRate(8.8).build()).total());
+    }
+
+    @Test
+    void onFilmChanged_movesCountsBetweenCells() {
+        counts.onFilmChanged(new FilmChangedEvent(inception, inception.withGenre(GENRE.DRAMA).withRate(7.9)));
+        counts.onFilmChanged(new FilmChangedEvent(darkKnight, null));
+
+        FilmFacets facets = counts.count(FilmQuery.ALL);
+
+        assertEquals(2, facets.total());
+        assertEquals(Map.of(GENRE.DRAMA, 1L, GENRE.ANIMATION, 1L), facets.genres());
+        assertEquals(Map.of(2010, 2L), facets.years());
+        assertEquals(Map.of(7, 1L, 8, 1L), facets.rates());
+    }
+
+    @Test
+    void count_rateInHundredths_matchesFilter() {
+        counts.onFilmChanged(new FilmChangedEvent(toyStory, toyStory.withRate(8.35)));
+
+        assertEquals(1, counts.count(FilmQuery.builder().minRate(8.35).maxRate(8.35).build()).total());
+        assertEquals(0, counts.count(FilmQuery.builder().minRate(8.36).maxRate(8.4).build()).total());
+    }
+
+    @Test
+    void onFilmChanged_afterReload_takesHalfwayRatesOutOfTheCountedCell() {
+        Film halfway = inception.withRate(7.25);
+        Film otherHalfway = darkKnight.withRate(8.45);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        // the groups as the aggregation returns them: $round(rate * 100), which rounds half to even
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Film.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        group(halfway.genreMask(), 2010, Math.rint(7.25 * 100)),
+                        group(otherHalfway.genreMask(), 2008, Math.rint(8.45 * 100))), new Document()));
+        FilmFacetCounts loaded = new FilmFacetCounts(mongoTemplate);
+        loaded.reload();
+
+        loaded.onFilmChanged(new FilmChangedEvent(halfway, halfway.withRate(9.0)));
+        loaded.onFilmChanged(new FilmChangedEvent(otherHalfway, null));
+
+        assertEquals(0, loaded.negativeCells());
+        FilmFacets facets = loaded.count(FilmQuery.ALL);
+        assertEquals(1, facets.total());
+        assertEquals(Map.of(9, 1L), facets.rates());
+    }
+
+    private static Document group(int genreMask, int year, double rate) {
+        return new Document("_id", new Document("genreMask", genreMask).append("year", year).append("rate", rate))
+                .append("count", 1);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmCard;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmFilterCacheTest {
+
+    private static final FilmQuery DRAMA_2010 = FilmQuery.builder()
+            .genres(Set.of(GENRE.DRAMA))
+            .releasedFrom(LocalDate.of(2010, 1, 1))
+            .releasedBefore(LocalDate.of(2011, 1, 1))
+            .build();
+    private static final FilmQuery COMEDY = FilmQuery.builder().genres(Set.of(GENRE.COMEDY)).build();
+    private static final FilmQuery ABOVE_9 = FilmQuery.builder().rateAbove(9.0).build();
+
+    private final Film drama2010 = new Film("1", "The King's Speech", LocalDate.of(2010, 9, 6),
+            8.0, "Colin Firth", GENRE.DRAMA, 118, "kings_speech.jpg", "description");
+
+    private SimpleMeterRegistry meterRegistry;
+    private FilmFilterCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new FilmFilterCache(true, 1000, Duration.ofMinutes(10), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private List<Film> load(FilmQuery query) {
+        return cache.get(query, Film.class, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+    }
+
+    @Test
+    void get_sameQueryTwice_loadsOnce() {
+        load(DRAMA_2010);
+        load(DRAMA_2010);
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "films.filter").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_sameQueryOtherReadShape_loadsSeparately() {
+        load(DRAMA_2010);
+        cache.get(DRAMA_2010, FilmCard.class, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onFilmChanged_evictsOnlyEntriesTheFilmMatches() {
+        load(DRAMA_2010);
+        load(COMEDY);
+        load(ABOVE_9);
+
+        // a drama from 2010 rated 8.0 -> 8.5 can only be in the DRAMA_2010 result
+        cache.onFilmChanged(new FilmChangedEvent(drama2010, drama2010.withRate(8.5)));
+        load(DRAMA_2010);
+        load(COMEDY);
+        load(ABOVE_9);
+
+        assertEquals(4, loads.get());
+        assertEquals(1.0, meterRegistry.get("films.filter.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void onFilmChanged_matchBeforeOrAfterChange_evicts() {
+        load(COMEDY);
+        load(ABOVE_9);
+
+        cache.onFilmChanged(new FilmChangedEvent(drama2010, drama2010.withGenre(GENRE.COMEDY)));
+        cache.onFilmChanged(new FilmChangedEvent(drama2010.withRate(9.5), null));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_writeWhileLoading_doesNotKeepStaleResult() {
+        cache.get(DRAMA_2010, Film.class, () -> {
+            cache.onFilmChanged(new FilmChangedEvent(null, drama2010));
+            return List.of();
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_disabled_alwaysLoads() {
+        FilmFilterCache disabled = new FilmFilterCache(false, 1000, Duration.ofMinutes(10), meterRegistry);
+        disabled.get(COMEDY, Film.class, List::of);
+        disabled.get(COMEDY, Film.class, List::of);
+
+        assertEquals(0, disabled.size());
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.backend.service;
+
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.GenreMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmFilterIndexTest {
+
+    private final Film inception = new Film("1", "Inception", LocalDate.of(2010, 1, 1),
+            8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+    private final Film darkKnight = new Film("2", "The Dark Knight", LocalDate.of(2008, 7, 18),
+            9.0, "Christian Bale", GENRE.ACTION, 152, "dark_knight.jpg", "description");
+    private final Film toyStory = new Film("3", "Toy Story 3", LocalDate.of(2010, 12, 31),
+            8.3, "Tom Hanks", GENRE.ANIMATION, 103, "toystory3.jpg", "description");
+
+    private FilmFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmFilterIndex(null, true, 10_000);
+        index.load(Stream.of(inception, darkKnight, toyStory));
+    }
+
+    @Test
+    void matchIds_genres_unionOfGenreBitsets() {
+        assertThat(index.matchIds(FilmQuery.builder().genres(Set.of(GENRE.SCI_FI, GENRE.ACTION)).build()))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder("1", "2"));
+    }
+
+    @Test
+    void matchIds_multiGenreFilm_anyAndAll() {
+        index.onFilmChanged(new FilmChangedEvent(inception,
+                inception.withGenres(GENRE.SCI_FI, Set.of(GENRE.ACTION, GENRE.THRILLER))));
+        FilmQuery.FilmQueryBuilder genres = FilmQuery.builder().genres(Set.of(GENRE.ACTION, GENRE.THRILLER));
+
+        assertThat(index.matchIds(genres.build()))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder("1", "2"));
+        assertEquals(Optional.of(List.of("1")), index.matchIds(genres.genreMatch(GenreMatch.ALL).build()));
+    }
+
+    @Test
+    void matchIds_yearRange_includesBothEnds() {
+        FilmQuery year2010 = FilmQuery.builder()
+                .releasedFrom(LocalDate.of(2010, 1, 1))
+                .releasedBefore(LocalDate.of(2011, 1, 1))
+                .build();
+
+        assertThat(index.matchIds(year2010)).hasValueSatisfying(ids -> assertThat(ids).containsExactly("1", "3"));
+    }
+
+    @Test
+    void matchIds_rates_matchMongoComparisons() {
+        assertEquals(Optional.of(List.of("2")), index.matchIds(FilmQuery.builder().rateAbove(8.8).build()));
+        assertEquals(Optional.of(List.of("1", "3")),
+                index.matchIds(FilmQuery.builder().minRate(8.3).maxRate(8.8).build()));
+        assertEquals(Optional.of(List.of("1")),
+                index.matchIds(FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).rateAbove(8.5)
+                        .releasedFrom(LocalDate.of(2010, 1, 1)).build()));
+    }
+
+    @Test
+    void onFilmChanged_keepsIndexInSync() {
+        index.onFilmChanged(new FilmChangedEvent(inception, inception.withGenre(GENRE.DRAMA)));
+        index.onFilmChanged(new FilmChangedEvent(darkKnight, null));
+        index.onFilmChanged(new FilmChangedEvent(null, darkKnight.withId("4").withGenre(GENRE.DRAMA)));
+
+        assertThat(index.matchIds(FilmQuery.builder().genres(Set.of(GENRE.DRAMA)).build()))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder("1", "4"));
+        assertEquals(Optional.of(List.of()), index.matchIds(FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).build()));
+        assertThat(index.matchIds(FilmQuery.ALL))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder("1", "3", "4"));
+    }
+
+    @Test
+    void matchIds_unsupportedQuery_leavesItToMongo() {
+        assertEquals(Optional.empty(), index.matchIds(FilmQuery.builder().minDuration(120).build()));
+        assertEquals(Optional.empty(), index.matchIds(FilmQuery.builder().sort(Sort.by("rate")).build()));
+        assertEquals(Optional.empty(), index.matchIds(FilmQuery.builder().limit(10).build()));
+    }
+
+    @Test
+    void matchIds_disabled_returnsEmpty() {
+        FilmFilterIndex disabled = new FilmFilterIndex(null, false, 10_000);
+        disabled.loadFromMongo();
+        disabled.onFilmChanged(new FilmChangedEvent(null, inception));
+
+        assertEquals(Optional.empty(), disabled.matchIds(FilmQuery.ALL));
+    }
+
+    @Test
+    void matchIds_moreThanMaxIds_leavesItToMongo() {
+        FilmFilterIndex small = new FilmFilterIndex(null, true, 2);
+        small.load(Stream.of(inception, darkKnight, toyStory));
+
+        assertEquals(Optional.empty(), small.matchIds(FilmQuery.ALL));
+        assertThat(small.matchIds(FilmQuery.builder().releasedFrom(LocalDate.of(2010, 1, 1)).build()))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder("1", "3"));
+    }
+
+    @Test
+    void toRate_outOfRange_saturatesInsteadOfWrapping() {
+        assertEquals(Short.MAX_VALUE, FilmFilterIndex.toRate(400.0));
+        assertEquals(FilmFilterIndex.NO_RATE + 1, FilmFilterIndex.toRate(-400.0));
+
+        index.onFilmChanged(new FilmChangedEvent(toyStory, toyStory.withRate(400.0)));
+        assertEquals(Optional.of(List.of("3")), index.matchIds(FilmQuery.builder().rateAbove(9.0).build()));
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.backend.service;
+
+import org.bson.Document;
+import org.example.backend.exceptions.ElementNotFoundExceptions;
+import org.example.backend.exceptions.OmdbUnavailableException;
+import org.example.backend.model.FilmBatchItem;
+import org.example.backend.model.FilmBatchResult;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.ImportJob;
+import org.example.backend.model.ImportStatus;
+import org.example.backend.model.OmdbPriority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FilmImportServiceTest {
+
+    private ClientApiService clientApiService;
+    private FilmsService filmsService;
+    private MongoTemplate mongoTemplate;
+    private FilmImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        clientApiService = mock(ClientApiService.class);
+        filmsService = mock(FilmsService.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        IdService idService = mock(IdService.class);
+        when(idService.generateId()).thenReturn("job-1");
+        importService = new FilmImportService(clientApiService, filmsService, idService, mongoTemplate, 4, 2, 10);
+        when(filmsService.saveFilms(anyList(), eq(true))).thenAnswer(invocation -> created(invocation.getArgument(0)));
+    }
+
+    private static FilmBatchResult created(List<FilmDTO> films) {
+        List<FilmBatchItem> items = IntStream.range(0, films.size())
+                .mapToObj(i -> new FilmBatchItem(i, "film-" + i, FilmBatchItem.Status.CREATED, null))
+                .toList();
+        return new FilmBatchResult(items.size(), 0, 0, items);
+    }
+
+    private static FilmDTO film(String title) {
+        return new FilmDTO(title, LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves", GENRE.ACTION, 136,
+                "poster.jpg", "description");
+    }
+
+    private static ImportJob job(List<String> imdbIds, int resumeFrom) {
+        Instant now = Instant.now();
+        return new ImportJob("job-1", ImportStatus.RUNNING, imdbIds, imdbIds.size(), resumeFrom, 0, 0, List.of(),
+                null, now, now, null, now, resumeFrom);
+    }
+
+    private List<Document> updates() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), captor.capture(), eq(ImportJob.class));
+        return captor.getAllValues().stream().map(Update::getUpdateObject).toList();
+    }
+
+    @Test
+    void run_importsInBatchesAndRecordsProgress() {
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND)))
+                .thenAnswer(invocation -> film(invocation.getArgument(0)));
+
+        importService.run(job(List.of("tt0000001", "tt0000002", "tt0000003"), 0));
+
+        verify(filmsService).saveFilms(List.of(film("tt0000001"), film("tt0000002")), true);
+        verify(filmsService).saveFilms(List.of(film("tt0000003")), true);
+        List<Document> updates = updates();
+        assertEquals(3, updates.size());
+        assertEquals(2, updates.get(0).get("$set", Document.class).get("resumeFrom"));
+        assertEquals(3, updates.get(1).get("$set", Document.class).get("resumeFrom"));
+        assertEquals(ImportStatus.COMPLETED, updates.get(2).get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void run_failedLookup_isRecordedAndOthersImported() {
+        when(clientApiService.getMovieById("tt0000001", OmdbPriority.BACKGROUND)).thenReturn(film("The Matrix"));
+        when(clientApiService.getMovieById("tt0000002", OmdbPriority.BACKGROUND))
+                .thenThrow(new IllegalArgumentException("Released date cannot be null or blank"));
+
+        importService.run(job(List.of("tt0000001", "tt0000002"), 0));
+
+        verify(filmsService).saveFilms(List.of(film("The Matrix")), true);
+        Document batch = updates().getFirst();
+        assertEquals(1, batch.get("$inc", Document.class).get("failed"));
+        assertNotNull(batch.get("$push", Document.class).get("failures"));
+    }
+
+    @Test
+    void run_resumed_startsAtResumePoint() {
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND)))
+                .thenAnswer(invocation -> film(invocation.getArgument(0)));
+
+        importService.run(job(List.of("tt0000001", "tt0000002", "tt0000003"), 2));
+
+        verify(clientApiService, never()).getMovieById("tt0000001", OmdbPriority.BACKGROUND);
+        verify(clientApiService, never()).getMovieById("tt0000002", OmdbPriority.BACKGROUND);
+        verify(filmsService).saveFilms(List.of(film("tt0000003")), true);
+    }
+
+    @Test
+    void run_writeFails_stopsJobAsFailed() {
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND)))
+                .thenReturn(film("The Matrix"));
+        when(filmsService.saveFilms(anyList(), eq(true))).thenThrow(new DataAccessResourceFailureException("Mongo down"));
+
+        importService.run(job(List.of("tt0000001", "tt0000002", "tt0000003"), 0));
+
+        verify(filmsService, times(1)).saveFilms(anyList(), eq(true));
+        Document stop = updates().getFirst().get("$set", Document.class);
+        assertEquals(ImportStatus.FAILED, stop.get("status"));
+        assertEquals("Mongo down", stop.get("error"));
+    }
+
+    @Test
+    void run_filmAlreadyImportedOrRejected_isNotInsertedAgain() {
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND)))
+                .thenAnswer(invocation -> film(invocation.getArgument(0)));
+        when(filmsService.saveFilms(anyList(), eq(true))).thenReturn(new FilmBatchResult(0, 1, 1, List.of(
+                new FilmBatchItem(0, "film-1", FilmBatchItem.Status.UPDATED, null),
+                FilmBatchItem.failed(1, "Same title and release date as film 0"))));
+
+        importService.run(job(List.of("tt0000001", "tt0000002"), 0));
+
+        verify(filmsService, never()).addFilms(anyList());
+        Document batch = updates().getFirst();
+        assertEquals(1, batch.get("$inc", Document.class).get("imported"));
+        assertEquals(1, batch.get("$inc", Document.class).get("failed"));
+    }
+
+    @Test
+    void run_omdbUnavailable_cancelsRestOfBatch() throws InterruptedException {
+        importService = new FilmImportService(clientApiService, filmsService, mock(IdService.class), mongoTemplate,
+                4, 4, 10);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch cancelled = new CountDownLatch(3);
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("tt0000001")) {
+                // fails once the other three lookups are under way
+                started.await();
+                throw new OmdbUnavailableException("OMDb is unavailable", Duration.ofSeconds(30));
+            }
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                throw e;
+            }
+            return film(invocation.getArgument(0));
+        });
+
+        importService.run(job(List.of("tt0000001", "tt0000002", "tt0000003", "tt0000004"), 0));
+
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+        verify(filmsService, never()).saveFilms(anyList(), anyBoolean());
+        assertEquals(ImportStatus.FAILED, updates().getFirst().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void run_concurrentLookups_respectCap() {
+        importService = new FilmImportService(clientApiService, filmsService, mock(IdService.class), mongoTemplate,
+                2, 10, 10);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(clientApiService.getMovieById(anyString(), eq(OmdbPriority.BACKGROUND)))
+                .thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return film(invocation.getArgument(0));
+        });
+
+        importService.run(job(List.of("tt0000001", "tt0000002", "tt0000003", "tt0000004", "tt0000005",
+                "tt0000006"), 0));
+
+        assertTrue(maxInFlight.get() <= 2, "max in flight: " + maxInFlight.get());
+        verify(clientApiService, times(6)).getMovieById(anyString(), eq(OmdbPriority.BACKGROUND));
+    }
+
+    @Test
+    void startImport_invalidInput_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> importService.startImport(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> importService.startImport(List.of("matrix")));
+        assertThrows(IllegalArgumentException.class, () -> importService.startImport(
+                List.of("tt0000001", "tt0000002", "tt0000003", "tt0000004", "tt0000005", "tt0000006",
+                        "tt0000007", "tt0000008", "tt0000009", "tt0000010", "tt0000011")));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void startImport_dropsDuplicateIds() {
+        when(mongoTemplate.insert(any(ImportJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportJob job = importService.startImport(List.of("tt0000001", " tt0000001", "tt0000002"));
+
+        assertEquals(List.of("tt0000001", "tt0000002"), job.imdbIds());
+        assertEquals(2, job.total());
+    }
+
+    @Test
+    void resumeImport_completedOrUnknownJob_throwsException() {
+        ImportJob completed = job(List.of("tt0000001"), 1).withStatus(ImportStatus.COMPLETED);
+        when(mongoTemplate.findById("job-1", ImportJob.class)).thenReturn(completed);
+
+        assertThrows(IllegalArgumentException.class, () -> importService.resumeImport("job-1"));
+        assertThrows(ElementNotFoundExceptions.class, () -> importService.resumeImport("unknown"));
+    }
+
+    @Test
+    void filmsPerSecond_countsCurrentRunOnly() {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        ImportJob job = new ImportJob("job-1", ImportStatus.RUNNING, List.of(), 1000, 600, 600, 0, List.of(), null,
+                start, start.plusSeconds(20), null, start.plusSeconds(10), 100);
+
+        assertEquals(50.0, job.filmsPerSecond());
+    }
+}
@@ -1,19 +1,47 @@
 package org.example.backend.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
 import org.example.backend.exceptions.ElementNotFoundExceptions;
+import org.example.backend.exceptions.VersionConflictException;
 import org.example.backend.model.Film;
+import org.example.backend.model.FilmBatchItem;
+import org.example.backend.model.FilmBatchResult;
+import org.example.backend.model.FilmBulkResult;
+import org.example.backend.model.FilmCard;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.FilmCursor;
 import org.example.backend.model.FilmDTO;
+import org.example.backend.model.FilmFacets;
+import org.example.backend.model.FilmFilter;
+import org.example.backend.model.FilmPage;
+import org.example.backend.model.FilmProjection;
+import org.example.backend.model.FilmQuery;
+import org.example.backend.model.FilmQueryShape;
+import org.example.backend.model.FilmView;
 import org.example.backend.model.GENRE;
+import org.example.backend.model.GenreMatch;
+import org.example.backend.model.HomepageImages;
 import org.example.backend.repository.FilmsRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +59,22 @@ class FilmsServiceTest {
     @Mock
     private IdService idService;
 
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private FilmFilterIndex filmFilterIndex;
+
+    @Spy
+    private FilmFilterCache filmFilterCache =
+            new FilmFilterCache(false, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Mock
+    private FilmFacetCounts filmFacetCounts;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Test
     void getAllFilms_returnsListOfFilms() {
         Film film = new Film("1", "Inception",
@@ -131,18 +175,21 @@ class FilmsServiceTest {
     void deleteFilmById_existingFilm_deletesSuccessfully() {
         String filmId = "123";
 
-        when(filmsRepository.existsById(filmId)).thenReturn(true);
+        when(filmsRepository.findAndRemove(filmId)).thenReturn(Optional.of(new Film(filmId, "Inception",
+                LocalDate.of(2010, 7, 16), 8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg",
+                "description")));
 
         filmsService.deleteFilmById(filmId);
 
-        verify(filmsRepository).deleteById(filmId);
+        verify(filmsRepository).findAndRemove(filmId);
+        verify(filmsRepository, never()).findById(anyString());
     }
 
     @Test
     void deleteFilmById_nonExistingFilm_throwsException() {
         String filmId = "999";
 
-        when(filmsRepository.existsById(filmId)).thenReturn(false);
+        when(filmsRepository.findAndRemove(filmId)).thenReturn(Optional.empty());
 
         ElementNotFoundExceptions ex = assertThrows(ElementNotFoundExceptions.class,
                 () -> filmsService.deleteFilmById(filmId));
@@ -202,21 +249,7 @@ class FilmsServiceTest {
                 "description"
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                filmDTO.releaseDate(),
-                filmDTO.rate(),
-                filmDTO.casts(),
-                filmDTO.genre(),
-                filmDTO.duration(),
-                filmDTO.poster(),
-                filmDTO.description()
-        );
-
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -226,8 +259,7 @@ class FilmsServiceTest {
         assertEquals(9.0, result.rate());
         assertEquals(150, result.duration());
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -243,11 +275,10 @@ class FilmsServiceTest {
                 "https://example.com/inception-updated.jpg",
                 "description"
         );
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.empty());
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.empty());
         ElementNotFoundExceptions ex = assertThrows(ElementNotFoundExceptions.class,
                 () -> filmsService.updateFilm(filmId, filmDTO));
         assertEquals("Film not found: 999", ex.getMessage());
-        verify(filmsRepository).findById(filmId);
         verify(filmsRepository, never()).save(any(Film.class));
     }
 
@@ -269,21 +300,7 @@ class FilmsServiceTest {
                 null
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                "Inception",
-                LocalDate.of(2010, 7, 16),
-                9.0,
-                "Leonardo DiCaprio",
-                GENRE.SCI_FI,
-                150,
-                "https://example.com/inception.jpg",
-                "This film about ...."
-        );
-
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -293,8 +310,7 @@ class FilmsServiceTest {
         assertEquals(9.0, result.rate());
         assertEquals(150, result.duration());
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -315,21 +331,7 @@ class FilmsServiceTest {
                 null
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                "Inception",
-                LocalDate.of(2010, 7, 16),
-                9.0,
-                "Leonardo DiCaprio",
-                GENRE.SCI_FI,
-                150,
-                "https://example.com/inception.jpg",
-                "Go-go-go updated"
-        );
-
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -339,8 +341,7 @@ class FilmsServiceTest {
         assertEquals(9.0, result.rate());
         assertEquals(150, result.duration());
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -385,8 +386,7 @@ class FilmsServiceTest {
     void deleteFilmById_whenRepositoryThrowsException_propagatesException() {
         String filmId = "123";
 
-        when(filmsRepository.existsById(filmId)).thenReturn(true);
-        doThrow(new RuntimeException("Database error")).when(filmsRepository).deleteById(filmId);
+        when(filmsRepository.findAndRemove(filmId)).thenThrow(new RuntimeException("Database error"));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> filmsService.deleteFilmById(filmId));
         assertEquals("Database error", ex.getMessage());
@@ -410,8 +410,8 @@ class FilmsServiceTest {
                 "This film about ...."
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-        when(filmsRepository.save(any(Film.class))).thenThrow(new RuntimeException("Database error"));
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any()))
+                .thenThrow(new RuntimeException("Database error"));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> filmsService.updateFilm(filmId, filmDTO));
         assertEquals("Database error", ex.getMessage());
@@ -529,21 +529,7 @@ class FilmsServiceTest {
                 "description"
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                filmDTO.releaseDate(),
-                existingFilm.rate(), // !!! rate remains unchanged
-                filmDTO.casts(),
-                filmDTO.genre(),
-                existingFilm.duration(), // !!! duration remains unchanged
-                filmDTO.poster(),
-                filmDTO.description()
-        );
-
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -553,8 +539,7 @@ class FilmsServiceTest {
         assertEquals(8.8, result.rate()); // rate should remain unchanged
         assertEquals(148, result.duration()); // duration should remain unchanged
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -575,8 +560,7 @@ class FilmsServiceTest {
                 null
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-        when(filmsRepository.save(any(Film.class))).thenReturn(existingFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -589,8 +573,7 @@ class FilmsServiceTest {
         assertEquals(GENRE.SCI_FI, result.genre());
         assertEquals(148, result.duration());
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -653,21 +636,7 @@ class FilmsServiceTest {
                 "description"
         );
 
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                filmDTO.releaseDate(),
-                filmDTO.rate(),
-                filmDTO.casts(),
-                existingFilm.genre(), // !!! genre remains unchanged
-                filmDTO.duration(),
-                filmDTO.poster(),
-                filmDTO.description()
-        );
-
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -676,8 +645,7 @@ class FilmsServiceTest {
         assertEquals("Inception Updated", result.title());
         assertEquals(GENRE.SCI_FI, result.genre()); // genre should remain unchanged
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -738,27 +706,14 @@ class FilmsServiceTest {
                 "https://example.com/inception-updated.jpg",
                 "description"
         );
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                filmDTO.releaseDate(),
-                filmDTO.rate(),
-                existingFilm.casts(), // !!! casts remains unchanged
-                filmDTO.genre(),
-                filmDTO.duration(),
-                filmDTO.poster(),
-                filmDTO.description()
-        );
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
         assertNotNull(result);
         assertEquals(filmId, result.id());
         assertEquals("Inception Updated", result.title());
         assertEquals("Leonardo DiCaprio", result.casts()); // casts should remain unchanged
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -819,26 +774,13 @@ class FilmsServiceTest {
                 null,
                 "description"
         );
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                filmDTO.releaseDate(),
-                filmDTO.rate(),
-                filmDTO.casts(),
-                filmDTO.genre(),
-                filmDTO.duration(),
-                existingFilm.poster(), // !!! poster remains unchanged
-                filmDTO.description()
-        );
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
         Film result = filmsService.updateFilm(filmId, filmDTO);
         assertNotNull(result);
         assertEquals(filmId, result.id());
         assertEquals("Inception Updated", result.title());
         assertEquals("https://example.com/inception.jpg", result.poster()); // poster should remain unchanged
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -898,26 +840,13 @@ class FilmsServiceTest {
                 "https://example.com/inception-updated.jpg",
                 "description"
         );
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-        Film updatedFilm = new Film(
-                filmId,
-                filmDTO.title(),
-                existingFilm.releaseDate(), // !!! release date remains unchanged
-                filmDTO.rate(),
-                filmDTO.casts(),
-                filmDTO.genre(),
-                filmDTO.duration(),
-                filmDTO.poster(),
-                filmDTO.description()
-        );
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
         Film result = filmsService.updateFilm(filmId, filmDTO);
         assertNotNull(result);
         assertEquals(filmId, result.id());
         assertEquals("Inception Updated", result.title());
         assertEquals(LocalDate.of(2010, 7, 16), result.releaseDate()); // release date should remain unchanged
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -977,7 +906,7 @@ class FilmsServiceTest {
                 8.7, "Keanu Reeves", GENRE.SCI_FI, 136, "https://example.com/matrix.jpg",
                 "description");
 
-        when(filmsRepository.findFilmsByGenre(genre)).thenReturn(List.of(film1, film2));
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre)).build(), Film.class)).thenReturn(List.of(film1, film2));
 
         List<Film> result = filmsService.getFilmsByFilter(null, genre.name(), null);
 
@@ -985,21 +914,21 @@ class FilmsServiceTest {
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(film -> film.genre() == GENRE.SCI_FI));
 
-        verify(filmsRepository).findFilmsByGenre(genre);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre)).build(), Film.class);
     }
 
     @Test
     void  filterFilmsByGenre_emptyGenre_returnsEmptyFilms() {
         GENRE genre = GENRE.SCI_FI;
 
-        when(filmsRepository.findFilmsByGenre(genre)).thenReturn(List.of());
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre)).build(), Film.class)).thenReturn(List.of());
 
         List<Film> result = filmsService.getFilmsByFilter(null, genre.name(), null);
 
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        verify(filmsRepository).findFilmsByGenre(genre);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre)).build(), Film.class);
     }
 
     @Test
@@ -1013,9 +942,9 @@ class FilmsServiceTest {
                 "description");
 
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
 
-        when(filmsRepository.findFilmsByReleaseDateBetween(start, end)).thenReturn(List.of(film1, film2));
+        when(filmsRepository.findFilms(FilmQuery.builder().releasedFrom(start).releasedBefore(end).build(), Film.class)).thenReturn(List.of(film1, film2));
 
         List<Film> result = filmsService.getFilmsByFilter(year, null, null);
 
@@ -1023,23 +952,23 @@ class FilmsServiceTest {
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(film -> film.releaseDate().getYear() == year));
 
-        verify(filmsRepository).findFilmsByReleaseDateBetween(start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().releasedFrom(start).releasedBefore(end).build(), Film.class);
     }
 
     @Test
     void filterFilmsByYear_noFilmsInYear_returnsEmptyList() {
         int year = 2022;
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
 
-        when(filmsRepository.findFilmsByReleaseDateBetween(start, end)).thenReturn(List.of());
+        when(filmsRepository.findFilms(FilmQuery.builder().releasedFrom(start).releasedBefore(end).build(), Film.class)).thenReturn(List.of());
 
         List<Film> result = filmsService.getFilmsByFilter(year, null, null);
 
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        verify(filmsRepository).findFilmsByReleaseDateBetween(start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().releasedFrom(start).releasedBefore(end).build(), Film.class);
     }
 
     @Test
@@ -1049,7 +978,7 @@ class FilmsServiceTest {
                 8.5, "Tom Hanks", GENRE.ANIMATION, 103, "https://example.com/toystory3.jpg",
                         "description");
 
-        when(filmsRepository.findFilmsByRateAfter(rate)).thenReturn(List.of(film));
+        when(filmsRepository.findFilms(FilmQuery.builder().rateAbove(rate).build(), Film.class)).thenReturn(List.of(film));
 
         List<Film> result = filmsService.getFilmsByFilter(null, null, rate);
 
@@ -1057,35 +986,36 @@ class FilmsServiceTest {
         assertEquals(1, result.size());
         assertTrue(result.stream().allMatch(film2 -> film2.rate() >= rate));
 
-        verify(filmsRepository).findFilmsByRateAfter(rate);
+        verify(filmsRepository).findFilms(FilmQuery.builder().rateAbove(rate).build(), Film.class);
     }
 
     @Test
     void filterFilmByRate_noFilmsWithRateAboveThreshold_returnsEmptyList() {
         double rate = 9.5;
 
-        when(filmsRepository.findFilmsByRateAfter(rate)).thenReturn(List.of());
+        when(filmsRepository.findFilms(FilmQuery.builder().rateAbove(rate).build(), Film.class)).thenReturn(List.of());
 
         List<Film> result = filmsService.getFilmsByFilter(null, null, rate);
 
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        verify(filmsRepository).findFilmsByRateAfter(rate);
+        verify(filmsRepository).findFilms(FilmQuery.builder().rateAbove(rate).build(), Film.class);
     }
 
     @Test
     void filterFilmsByAllCriteria_returnsFilteredFilms() {
         int year = 2010;
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
         GENRE genre = GENRE.SCI_FI;
         double rate = 8.5;
         Film film1 = new Film("1", "Inception", LocalDate.of(2010, 7, 16),
                 8.5, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "https://example.com/inception.jpg",
                 "description");
 
-        when(filmsRepository.findFilmsByGenreAndRateAfterAndReleaseDateBetween(genre, rate, start, end)).thenReturn(List.of(film1));
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class)).thenReturn(List.of(film1));
 
         List<Film> result = filmsService.getFilmsByFilter(year, genre.name(), rate);
 
@@ -1095,7 +1025,8 @@ class FilmsServiceTest {
         assertTrue(result.stream().allMatch(film -> film.genre() == genre));
         assertTrue(result.stream().allMatch(film -> film.rate() >= rate));
 
-        verify(filmsRepository).findFilmsByGenreAndRateAfterAndReleaseDateBetween(genre, rate, start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class);
 
     }
 
@@ -1107,11 +1038,7 @@ class FilmsServiceTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> filmsService.getFilmsByFilter(null, invalidGenre, null));
         assertEquals("Invalid genre: INVALID_GENRE", ex.getMessage());
-
-    verify(filmsRepository, never()).findFilmsByGenreAndRateAfterAndReleaseDateBetween(any(GENRE.class),
-            isNull(Double.class),
-            isNull(LocalDate.class),
-            isNull(LocalDate.class));
+        verifyNoInteractions(filmsRepository);
     }
 
     @Test
@@ -1122,33 +1049,29 @@ class FilmsServiceTest {
                 () -> filmsService.getFilmsByFilter(null, null, invalidRate));
         assertEquals("Rate must be between 0.0 and 10.0: -1.0", ex.getMessage());
 
-        verify(filmsRepository, never()).findFilmsByRateAfter(invalidRate);
+        verifyNoInteractions(filmsRepository);
     }
 
     @Test
     void filterFilmsByInvalidYear_throwsException() {
         int invalidYear = 1800;
-        LocalDate start = LocalDate.of(invalidYear, 7, 16);
-        LocalDate end = LocalDate.of(invalidYear, 12, 31);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> filmsService.getFilmsByFilter(invalidYear, null, null));
         assertEquals("Year must be between 1888 and the current year: 1800", ex.getMessage());
 
-        verify(filmsRepository, never()).findFilmsByReleaseDateBetween(start, end);
+        verifyNoInteractions(filmsRepository);
     }
 
     @Test
     void filterFilmsByYearInFuture_throwsException() {
         int invalidYear = LocalDate.now().getYear() + 1;
-        LocalDate start = LocalDate.of(invalidYear, 7, 16);
-        LocalDate end = LocalDate.of(invalidYear, 12, 31);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> filmsService.getFilmsByFilter(invalidYear, null, null));
         assertEquals("Year must be between 1888 and the current year: " + invalidYear, ex.getMessage());
 
-        verify(filmsRepository, never()).findFilmsByReleaseDateBetween(start, end);
+        verifyNoInteractions(filmsRepository);
     }
 
     @Test
@@ -1159,7 +1082,7 @@ class FilmsServiceTest {
                 () -> filmsService.getFilmsByFilter(null, null, invalidRate));
         assertEquals("Rate must be between 0.0 and 10.0: 11.0", ex.getMessage());
 
-        verify(filmsRepository, never()).findFilmsByRateAfter(invalidRate);
+        verifyNoInteractions(filmsRepository);
 
     }
 
@@ -1171,8 +1094,24 @@ class FilmsServiceTest {
                 () -> filmsService.getFilmsByFilter(null, null, invalidRate));
         assertEquals("Rate must be between 0.0 and 10.0: -0.1", ex.getMessage());
 
-        verify(filmsRepository, never()).findFilmsByRateAfter(invalidRate);
+        verifyNoInteractions(filmsRepository);
+
+    }
+
+    @Test
+    void addAndUpdateFilm_rateOutOfRange_throwsException() {
+        FilmDTO tooHigh = new FilmDTO("Inception", LocalDate.of(2010, 7, 16), 400.0, "Leonardo DiCaprio",
+                GENRE.SCI_FI, 148, "poster", "description");
+
+        IllegalArgumentException add = assertThrows(IllegalArgumentException.class,
+                () -> filmsService.addFilm(tooHigh));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.addFilms(List.of(tooHigh)));
+        IllegalArgumentException update = assertThrows(IllegalArgumentException.class,
+                () -> filmsService.updateFilm("1", tooHigh));
+        assertEquals("Rate must be between 0.0 and 10.0: 400.0", add.getMessage());
+        assertEquals("Rate must be between 0.0 and 10.0: 400.0", update.getMessage());
 
+        verifyNoInteractions(filmsRepository);
     }
 
     @Test
@@ -1193,7 +1132,7 @@ class FilmsServiceTest {
                 8.8, "Tom Hanks", GENRE.DRAMA, 142, "https://example.com/forrestgump.jpg",
                 "description");
 
-        when(filmsRepository.findFilmsByGenreAndRateAfter(genre, rate)).thenReturn(List.of(film1, film2));
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate).build(), Film.class)).thenReturn(List.of(film1, film2));
 
         List<Film> result = filmsService.getFilmsByFilter(null, genre.name(), rate);
 
@@ -1201,7 +1140,7 @@ class FilmsServiceTest {
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(film -> film.rate() > rate && film.genre() == genre));
 
-        verify(filmsRepository).findFilmsByGenreAndRateAfter(genre, rate);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate).build(), Film.class);
     }
 
     @Test
@@ -1209,14 +1148,14 @@ class FilmsServiceTest {
         double rate = 9.5;
         GENRE genre = GENRE.DRAMA;
 
-        when(filmsRepository.findFilmsByGenreAndRateAfter(genre, rate)).thenReturn(List.of());
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate).build(), Film.class)).thenReturn(List.of());
 
         List<Film> result = filmsService.getFilmsByFilter(null, genre.name(), rate);
 
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        verify(filmsRepository).findFilmsByGenreAndRateAfter(genre, rate);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre)).rateAbove(rate).build(), Film.class);
     }
 
     @Test
@@ -1224,7 +1163,7 @@ class FilmsServiceTest {
         double rate = 8.0;
         int year = 1994;
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
         Film film1 = new Film("1", "The Shawshank Redemption", LocalDate.of(1994, 9, 22),
                 9.3, "Tim Robbins", GENRE.DRAMA, 142, "https://example.com/shawshank.jpg",
                 "description");
@@ -1232,7 +1171,8 @@ class FilmsServiceTest {
                 8.8, "Tom Hanks", GENRE.DRAMA, 142, "https://example.com/forrestgump.jpg",
                 "description");
 
-        when(filmsRepository.findFilmsByRateAfterAndReleaseDateBetween(rate, start, end))
+        when(filmsRepository.findFilms(FilmQuery.builder().rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class))
                 .thenReturn(List.of(film1, film2));
 
         List<Film> result = filmsService.getFilmsByFilter(year, null, rate);
@@ -1241,7 +1181,8 @@ class FilmsServiceTest {
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(film -> film.rate() > rate && film.releaseDate().getYear() == year));
 
-        verify(filmsRepository).findFilmsByRateAfterAndReleaseDateBetween(rate, start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class);
     }
 
     @Test
@@ -1249,9 +1190,10 @@ class FilmsServiceTest {
         double rate = 9.5;
         int year = 1994;
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
 
-        when(filmsRepository.findFilmsByRateAfterAndReleaseDateBetween(rate, start, end))
+        when(filmsRepository.findFilms(FilmQuery.builder().rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class))
                 .thenReturn(List.of());
 
         List<Film> result = filmsService.getFilmsByFilter(year, null, rate);
@@ -1259,7 +1201,8 @@ class FilmsServiceTest {
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        verify(filmsRepository).findFilmsByRateAfterAndReleaseDateBetween(rate, start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().rateAbove(rate)
+                .releasedFrom(start).releasedBefore(end).build(), Film.class);
     }
 
     @Test
@@ -1276,25 +1219,11 @@ class FilmsServiceTest {
                 null,
                 null,
                 150,
-                null,
-                null
-        );
-
-        when(filmsRepository.findById(filmId)).thenReturn(Optional.of(existingFilm));
-
-        Film updatedFilm = new Film(
-                filmId,
-                "Inception",
-                LocalDate.of(2010, 7, 16),
-                9.0,
-                "Leonardo DiCaprio",
-                GENRE.SCI_FI,
-                150,
                 "https://example.com/inception2.jpg",
-                "description"
+                null
         );
 
-        when(filmsRepository.save(any(Film.class))).thenReturn(updatedFilm);
+        when(filmsRepository.findAndUpdate(eq(filmId), isNull(), any(), any())).thenReturn(Optional.of(existingFilm));
 
         Film result = filmsService.updateFilm(filmId, filmDTO);
 
@@ -1304,8 +1233,7 @@ class FilmsServiceTest {
         assertEquals(9.0, result.rate());
         assertEquals(150, result.duration());
 
-        verify(filmsRepository).findById(filmId);
-        verify(filmsRepository).save(any(Film.class));
+        verify(filmsRepository).findAndUpdate(eq(filmId), isNull(), eq(filmDTO), any());
     }
 
     @Test
@@ -1313,7 +1241,7 @@ class FilmsServiceTest {
         GENRE genre = GENRE.DRAMA;
         int year = 1994;
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
+        LocalDate end = LocalDate.of(year + 1, 1, 1);
         Film film1 = new Film("1", "The Shawshank Redemption", LocalDate.of(1994, 9, 22),
                 9.3, "Tim Robbins", GENRE.DRAMA, 142, "https://example.com/shawshank.jpg",
                 "description");
@@ -1321,7 +1249,8 @@ class FilmsServiceTest {
                 8.8, "Tom Hanks", GENRE.DRAMA, 142, "https://example.com/forrestgump.jpg",
                 "description");
 
-        when(filmsRepository.findFilmsByGenreAndReleaseDateBetween(genre, start, end))
+        when(filmsRepository.findFilms(FilmQuery.builder().genres(Set.of(genre))
+                .releasedFrom(start).releasedBefore(end).build(), Film.class))
                 .thenReturn(List.of(film1, film2));
 
         List<Film> result = filmsService.getFilmsByFilter(year, genre.name(), null);
@@ -1330,7 +1259,8 @@ class FilmsServiceTest {
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(film -> film.genre().equals(genre) && film.releaseDate().getYear() == year));
 
-        verify(filmsRepository).findFilmsByGenreAndReleaseDateBetween(genre, start, end);
+        verify(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(genre))
+                .releasedFrom(start).releasedBefore(end).build(), Film.class);
     }
 
     @Test
@@ -1368,4 +1298,719 @@ class FilmsServiceTest {
         assertEquals("poster1.jpg", posters.getFirst());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getFilmsPage_moreFilmsThanLimit_returnsNextCursor() {
+        Film film1 = new Film("1", "Alien", LocalDate.of(1979, 5, 25),
+                8.5, "Sigourney Weaver", GENRE.HORROR, 117, "alien.jpg", "description");
+        Film film2 = new Film("2", "Inception", LocalDate.of(2010, 7, 16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+        Film film3 = new Film("3", "The Matrix", LocalDate.of(1999, 3, 31),
+                8.7, "Keanu Reeves", GENRE.SCI_FI, 136, "matrix.jpg", "description");
+
+        when(filmsRepository.findFilms(FilmQuery.builder().sort(Sort.by("title")).limit(3).build(), Film.class))
+                .thenReturn(List.of(film1, film2, film3));
+
+        FilmPage<Film> page = filmsService.getFilmsPage(null, 2);
+
+        assertEquals(2, page.films().size());
+        assertEquals("Inception", page.films().getLast().title());
+        assertEquals(new FilmCursor("Inception", "2"), FilmCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getFilmsPage_lastPage_returnsNoCursor() {
+        Film film = new Film("3", "The Matrix", LocalDate.of(1999, 3, 31),
+                8.7, "Keanu Reeves", GENRE.SCI_FI, 136, "matrix.jpg", "description");
+        FilmCursor after = new FilmCursor("Inception", "2");
+
+        when(filmsRepository.findFilms(FilmQuery.builder().sort(Sort.by("title")).after(after).limit(3).build(),
+                Film.class))
+                .thenReturn(List.of(film));
+
+        FilmPage<Film> page = filmsService.getFilmsPage(after.encode(), 2);
+
+        assertEquals(1, page.films().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getFilmsPage_invalidLimit_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsPage(null, 201));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilmsPage_invalidCursor_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsPage("not a cursor!", 10));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilmsByFilterPage_passesCriteriaToRepository() {
+        FilmQuery query = FilmQuery.builder()
+                .genres(Set.of(GENRE.SCI_FI))
+                .rateAbove(8.0)
+                .releasedFrom(LocalDate.of(2010, 1, 1))
+                .releasedBefore(LocalDate.of(2011, 1, 1))
+                .sort(Sort.by("title"))
+                .limit(11)
+                .build();
+
+        when(filmsRepository.findFilms(query, Film.class)).thenReturn(List.of());
+
+        FilmPage<Film> page = filmsService.getFilmsByFilterPage(2010, "SCI_FI", 8.0, null, 10);
+
+        assertTrue(page.films().isEmpty());
+        assertNull(page.nextCursor());
+        verify(filmsRepository).findFilms(query, Film.class);
+    }
+
+    @Test
+    void streamFilmsByFilter_delegatesToRepositoryCursor() {
+        Film film = new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+
+        when(filmsRepository.streamFilms(FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).build(), Film.class)).thenReturn(Stream.of(film));
+
+        try (Stream<Film> films = filmsService.streamFilmsByFilter(null, "SCI_FI", null)) {
+            assertEquals(List.of(film), films.toList());
+        }
+    }
+
+    @Test
+    void streamFilmsByFilter_invalidRate_throwsBeforeOpeningCursor() {
+        assertThrows(IllegalArgumentException.class, () -> filmsService.streamFilmsByFilter(null, null, 11.0));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getAllFilms_cardView_readsProjectionFromRepository() {
+        FilmCard card = new FilmCard("1", "Inception", LocalDate.of(2010, 7, 16), 8.8, "inception.jpg", null);
+
+        doReturn(List.of(card)).when(filmsRepository).findFilms(FilmQuery.ALL, FilmCard.class);
+
+        List<? extends FilmProjection> films = filmsService.getAllFilms(FilmView.CARD);
+
+        assertEquals(List.of(card), films);
+        verify(filmsRepository, never()).findAll();
+    }
+
+    @Test
+    void getFilmById_cardView_nonExistingFilm_throwsException() {
+        when(filmsRepository.findFilmById("999", FilmCard.class)).thenReturn(Optional.empty());
+
+        assertThrows(ElementNotFoundExceptions.class, () -> filmsService.getFilmById("999", FilmView.CARD));
+    }
+
+    @Test
+    void getFilmsByFilter_cardView_pushesFilterAndProjectionToRepository() {
+        LocalDate start = LocalDate.of(2010, 1, 1);
+        LocalDate end = LocalDate.of(2011, 1, 1);
+        FilmCard card = new FilmCard("1", "Inception", LocalDate.of(2010, 7, 16), 8.8, "inception.jpg", null);
+
+        doReturn(List.of(card)).when(filmsRepository).findFilms(FilmQuery.builder().genres(Set.of(GENRE.SCI_FI))
+                .releasedFrom(start).releasedBefore(end).build(), FilmCard.class);
+
+        List<? extends FilmProjection> films = filmsService.getFilmsByFilter(FilmFilter.of(2010, "SCI_FI", null),
+                FilmView.CARD.type());
+
+        assertEquals(List.of(card), films);
+    }
+
+    @Test
+    void filmViewParse_invalidView_throwsException() {
+        assertEquals(FilmView.FULL, FilmView.parse(null));
+        assertEquals(FilmView.CARD, FilmView.parse("card"));
+        assertThrows(IllegalArgumentException.class, () -> FilmView.parse("thumbnail"));
+    }
+
+    @Test
+    void addFilm_setsFirstVersionAndBumpsCatalogVersion() {
+        FilmDTO filmDTO = new FilmDTO("Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+
+        when(idService.generateId()).thenReturn("123");
+        when(filmsRepository.save(any(Film.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Film result = filmsService.addFilm(filmDTO);
+
+        assertEquals(1L, result.version());
+        assertNotNull(result.updatedAt());
+        verify(catalogVersionService).bumpFilmsVersion();
+    }
+
+    @Test
+    void updateFilm_incrementsVersionAndBumpsCatalogVersion() {
+        Film existingFilm = new Film("123", "Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description", 4L, Instant.EPOCH);
+        FilmDTO filmDTO = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+
+        when(filmsRepository.findAndUpdate(eq("123"), isNull(), eq(filmDTO), any()))
+                .thenReturn(Optional.of(existingFilm));
+
+        Film result = filmsService.updateFilm("123", filmDTO);
+
+        assertEquals(5L, result.version());
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(filmsRepository).findAndUpdate(eq("123"), isNull(), eq(filmDTO), updatedAt.capture());
+        assertTrue(updatedAt.getValue().isAfter(Instant.EPOCH));
+        assertEquals(updatedAt.getValue(), result.updatedAt());
+        verify(catalogVersionService).bumpFilmsVersion();
+    }
+
+    @Test
+    void deleteFilmById_nonExistingFilm_doesNotBumpCatalogVersion() {
+        when(filmsRepository.findAndRemove("999")).thenReturn(Optional.empty());
+
+        assertThrows(ElementNotFoundExceptions.class, () -> filmsService.deleteFilmById("999"));
+        verifyNoInteractions(catalogVersionService);
+    }
+
+    @Test
+    void getFilmsByFilter_composedCriteria_buildsOneQuery() {
+        FilmFilter filter = new FilmFilter(null, 1990, 1999, List.of("DRAMA", "THRILLER"), null,
+                8.0, 9.5, 90, 180, List.of("-rate", "title"), null, null);
+        FilmQuery query = FilmQuery.builder()
+                .releasedFrom(LocalDate.of(1990, 1, 1))
+                .releasedBefore(LocalDate.of(2000, 1, 1))
+                .genres(Set.of(GENRE.DRAMA, GENRE.THRILLER))
+                .minRate(8.0)
+                .maxRate(9.5)
+                .minDuration(90)
+                .maxDuration(180)
+                .sort(Sort.by(Sort.Order.desc("rate"), Sort.Order.asc("title")))
+                .build();
+
+        when(filmsRepository.findFilms(query, Film.class)).thenReturn(List.of());
+
+        assertTrue(filmsService.getFilmsByFilter(filter, Film.class).isEmpty());
+        verify(filmsRepository).findFilms(query, Film.class);
+    }
+
+    @Test
+    void getFilmsByFilter_invalidRanges_throwsBeforeQuerying() {
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsByFilter(
+                new FilmFilter(2000, 1990, null, null, null, null, null, null, null, null, null, null), Film.class));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsByFilter(
+                new FilmFilter(null, 2000, 1990, null, null, null, null, null, null, null, null, null), Film.class));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsByFilter(
+                new FilmFilter(null, null, null, null, null, 9.0, 8.0, null, null, null, null, null), Film.class));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsByFilter(
+                new FilmFilter(null, null, null, null, null, null, null, -1, null, null, null, null), Film.class));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFilmsByFilter(
+                new FilmFilter(null, null, null, null, null, null, null, null, null, List.of("casts"), null, null),
+                Film.class));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilmsByFilter_genresMatchAll_mergesGenreParameters() {
+        FilmFilter filter = new FilmFilter(null, null, null, List.of("ACTION"), null,
+                null, null, null, null, null, List.of("THRILLER", " DRAMA"), "all");
+        FilmQuery query = FilmQuery.builder()
+                .genres(Set.of(GENRE.ACTION, GENRE.THRILLER, GENRE.DRAMA))
+                .genreMatch(GenreMatch.ALL)
+                .build();
+
+        when(filmsRepository.findFilms(query, Film.class)).thenReturn(List.of());
+
+        assertTrue(filmsService.getFilmsByFilter(filter, Film.class).isEmpty());
+        verify(filmsRepository).findFilms(query, Film.class);
+    }
+
+    @Test
+    void getFilmsByFilter_invalidMatch_throwsException() {
+        FilmFilter filter = new FilmFilter(null, null, null, null, null,
+                null, null, null, null, null, List.of("ACTION", "THRILLER"), "some");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> filmsService.getFilmsByFilter(filter, Film.class));
+        assertEquals("Invalid match: some", ex.getMessage());
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilterShape_genresMatchAll_narrowsByOneGenreAndChecksMask() {
+        FilmFilter filter = new FilmFilter(null, null, null, null, null,
+                null, null, null, null, null, List.of("ACTION", "THRILLER"), "ALL");
+
+        FilmQueryShape shape = filmsService.getFilterShape(filter, null, null);
+
+        assertEquals(Document.parse("{'genres': '?', 'genreMask': {'$bitsAllSet': '?'}}"), shape.filter());
+    }
+
+    @Test
+    void getFilmsByFilterPage_sortedByOtherThanTitle_throwsException() {
+        FilmFilter filter = new FilmFilter(null, null, null, null, null, null, null, null, null, List.of("-rate"),
+                null, null);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> filmsService.getFilmsByFilterPage(filter, null, 10, Film.class));
+        assertEquals("Paged results can only be sorted by title", ex.getMessage());
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilterShape_replacesValuesWithPlaceholders() {
+        FilmFilter filter = new FilmFilter(2010, null, null, List.of("DRAMA", "THRILLER"), 8.0,
+                null, null, null, null, List.of("-rate"), null, null);
+
+        FilmQueryShape shape = filmsService.getFilterShape(filter, null, null);
+
+        assertEquals(Document.parse("{'genres': {'$in': ['?', '?']}, 'releaseDate': {'$gte': '?', '$lt': '?'}, "
+                + "'rate': {'$gt': '?'}}"), shape.filter());
+        assertEquals(Document.parse("{'rate': -1, '_id': 1}"), shape.sort());
+        assertNull(shape.limit());
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFilterShape_withLimit_describesKeysetPage() {
+        FilmCursor after = new FilmCursor("Inception", "2");
+
+        FilmQueryShape shape = filmsService.getFilterShape(FilmFilter.of(null, "SCI_FI", null), after.encode(), 10);
+
+        assertEquals(Document.parse("{'genres': '?', '$or': [{'title': {'$gt': '?'}}, {'title': '?', '_id': {'$gt': '?'}}]}"),
+                shape.filter());
+        assertEquals(Document.parse("{'title': 1, '_id': 1}"), shape.sort());
+        assertEquals(11, shape.limit());
+    }
+
+    @Test
+    void getFilmsByFilter_indexAnswers_fetchesOnlyMatchedIds() {
+        Film film = new Film("1", "Inception", LocalDate.of(2010, 7, 16),
+                8.8, "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+        FilmQuery query = FilmQuery.builder().genres(Set.of(GENRE.SCI_FI)).build();
+
+        when(filmFilterIndex.matchIds(query)).thenReturn(Optional.of(List.of("1")));
+        when(filmsRepository.findFilmsByIds(List.of("1"), Film.class)).thenReturn(List.of(film));
+
+        assertEquals(List.of(film), filmsService.getFilmsByFilter(null, "SCI_FI", null));
+        verify(filmsRepository, never()).findFilms(any(), any());
+    }
+
+    @Test
+    void getFilmsByFilter_indexFindsNothing_skipsMongo() {
+        when(filmFilterIndex.matchIds(any())).thenReturn(Optional.of(List.of()));
+
+        assertTrue(filmsService.getFilmsByFilter(2010, null, 9.5).isEmpty());
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void writes_publishFilmChangedEvents() {
+        Film stored = new Film("123", "Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description");
+        when(filmsRepository.findAndRemove("123")).thenReturn(Optional.of(stored));
+        when(filmsRepository.findAndUpdate(eq("123"), isNull(), any(), any())).thenReturn(Optional.of(stored));
+
+        Film updated = filmsService.updateFilm("123", new FilmDTO(null, null, 9.0, null, null, null, null, null));
+        filmsService.deleteFilmById("123");
+
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(stored, updated));
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(stored, null));
+    }
+
+    @Test
+    void getFacets_passesValidatedQueryToCounters() {
+        FilmFacets facets = new FilmFacets(1, Map.of(GENRE.DRAMA, 1L), Map.of(2010, 1L), Map.of(8, 1L));
+        FilmQuery query = FilmQuery.builder()
+                .genres(Set.of(GENRE.DRAMA))
+                .releasedFrom(LocalDate.of(2010, 1, 1))
+                .releasedBefore(LocalDate.of(2011, 1, 1))
+                .build();
+
+        when(filmFacetCounts.count(query)).thenReturn(facets);
+
+        assertEquals(facets, filmsService.getFacets(FilmFilter.of(2010, "DRAMA", null)));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void getFacets_durationFilter_throwsException() {
+        FilmFilter filter = new FilmFilter(null, null, null, null, null, null, null, 90, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> filmsService.getFacets(filter));
+        verifyNoInteractions(filmFacetCounts);
+    }
+
+    @Test
+    void getHomepageImages_servesSnapshotFromMemory() {
+        Film recentFilm = new Film("1", "Recent Movie", LocalDate.now().minusDays(10),
+                8.0, "Actor 1", GENRE.DRAMA, 120, "poster1.jpg", "description");
+        when(filmsRepository.findFilmsByReleaseDateBetween(any(), any())).thenReturn(List.of(recentFilm));
+
+        HomepageImages first = filmsService.getHomepageSnapshot();
+        HomepageImages second = filmsService.getHomepageSnapshot();
+
+        assertSame(first, second);
+        assertEquals(List.of("poster1.jpg"), second.posters());
+        verify(filmsRepository, times(1)).findFilmsByReleaseDateBetween(any(), any());
+    }
+
+    @Test
+    void onFilmChanged_filmInsideWindow_rebuildsSnapshot() {
+        Film recentFilm = new Film("1", "Recent Movie", LocalDate.now().minusDays(10),
+                8.0, "Actor 1", GENRE.DRAMA, 120, "poster1.jpg", "description");
+        when(filmsRepository.findFilmsByReleaseDateBetween(any(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(recentFilm));
+
+        HomepageImages before = filmsService.getHomepageSnapshot();
+        filmsService.onFilmChanged(new FilmChangedEvent(null, recentFilm));
+        HomepageImages after = filmsService.getHomepageSnapshot();
+
+        assertEquals(List.of("poster1.jpg"), after.posters());
+        assertNotEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void onFilmChanged_burstInsideWindow_rebuildsOnceOnTheNextRead() {
+        Film recentFilm = new Film("1", "Recent Movie", LocalDate.now().minusDays(10),
+                8.0, "Actor 1", GENRE.DRAMA, 120, "poster1.jpg", "description");
+        when(filmsRepository.findFilmsByReleaseDateBetween(any(), any())).thenReturn(List.of(recentFilm));
+
+        filmsService.getHomepageSnapshot();
+        for (int i = 0; i < 5; i++) {
+            filmsService.onFilmChanged(new FilmChangedEvent(recentFilm, recentFilm.withRate(8.0 + i)));
+        }
+        verify(filmsRepository, times(1)).findFilmsByReleaseDateBetween(any(), any());
+
+        filmsService.getHomepageSnapshot();
+        filmsService.getHomepageSnapshot();
+        verify(filmsRepository, times(2)).findFilmsByReleaseDateBetween(any(), any());
+    }
+
+    @Test
+    void onFilmChanged_filmOutsideWindow_keepsSnapshot() {
+        Film oldFilm = new Film("1", "Old Movie", LocalDate.now().minusMonths(3),
+                6.5, "Actor 3", GENRE.HORROR, 130, "old.jpg", "description");
+        when(filmsRepository.findFilmsByReleaseDateBetween(any(), any())).thenReturn(List.of());
+
+        filmsService.getHomepageSnapshot();
+        filmsService.onFilmChanged(new FilmChangedEvent(null, oldFilm));
+
+        verify(filmsRepository, times(1)).findFilmsByReleaseDateBetween(any(), any());
+    }
+
+    @Test
+    void updateFilm_publishesTheFilmBeforeAndTheChangeAppliedToIt() {
+        // Mongo's answer to the update: the film as it was
+        Film storedFilm = new Film("123", "Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "old.jpg", "description", 4L, Instant.EPOCH)
+                .withPosterPlaceholder("data:image/jpeg;base64,AA==");
+        FilmDTO filmDTO = new FilmDTO(null, null, null, null, null, null, "new.jpg", null);
+
+        when(filmsRepository.findAndUpdate(eq("123"), isNull(), eq(filmDTO), any()))
+                .thenReturn(Optional.of(storedFilm));
+
+        Film savedFilm = filmsService.updateFilm("123", filmDTO);
+
+        assertEquals("new.jpg", savedFilm.poster());
+        assertNull(savedFilm.posterPlaceholder());
+        assertEquals(5L, savedFilm.version());
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(storedFilm, savedFilm));
+        verify(filmsRepository, times(1)).findAndUpdate(any(), any(), any(), any());
+        verifyNoMoreInteractions(filmsRepository);
+    }
+
+    @Test
+    void updateFilm_expectedVersion_passedToRepository() {
+        Film existingFilm = new Film("123", "Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description", 4L, Instant.EPOCH);
+        FilmDTO filmDTO = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+
+        when(filmsRepository.findAndUpdate(eq("123"), eq(4L), eq(filmDTO), any()))
+                .thenReturn(Optional.of(existingFilm));
+
+        Film result = filmsService.updateFilm("123", filmDTO, 4L);
+
+        assertEquals(5L, result.version());
+        assertEquals(9.0, result.rate());
+        verify(filmsRepository, never()).save(any(Film.class));
+    }
+
+    @Test
+    void updateFilm_staleVersion_throwsConflict() {
+        FilmDTO filmDTO = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+
+        when(filmsRepository.findAndUpdate(eq("123"), eq(3L), eq(filmDTO), any())).thenReturn(Optional.empty());
+        when(filmsRepository.existsById("123")).thenReturn(true);
+
+        VersionConflictException ex = assertThrows(VersionConflictException.class,
+                () -> filmsService.updateFilm("123", filmDTO, 3L));
+        assertEquals("Film 123 is no longer at version 3", ex.getMessage());
+        verifyNoInteractions(catalogVersionService, eventPublisher);
+    }
+
+    @Test
+    void updateFilm_expectedVersionOfMissingFilm_throwsNotFound() {
+        FilmDTO filmDTO = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+
+        when(filmsRepository.findAndUpdate(eq("999"), eq(3L), eq(filmDTO), any())).thenReturn(Optional.empty());
+        when(filmsRepository.existsById("999")).thenReturn(false);
+
+        assertThrows(ElementNotFoundExceptions.class, () -> filmsService.updateFilm("999", filmDTO, 3L));
+    }
+
+    @Test
+    void setPosterPlaceholder_samePoster_setsOnlyThePlaceholderAndPublishes() {
+        Film existingFilm = new Film("123", "Inception", LocalDate.of(2010, 7, 16), 8.8,
+                "Leonardo DiCaprio", GENRE.SCI_FI, 148, "inception.jpg", "description", 4L, Instant.EPOCH);
+
+        when(filmsRepository.setPosterPlaceholder("123", "inception.jpg", "data:image/png;base64,AAAA"))
+                .thenReturn(Optional.of(existingFilm));
+
+        Film result = filmsService.setPosterPlaceholder("123", "inception.jpg", "data:image/png;base64,AAAA")
+                .orElseThrow();
+
+        assertEquals("data:image/png;base64,AAAA", result.posterPlaceholder());
+        // a client holding the film's ETag can still write it
+        assertEquals(4L, result.version());
+        verify(filmsRepository, never()).save(any());
+        verify(catalogVersionService).bumpFilmsVersion();
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(existingFilm, result));
+    }
+
+    @Test
+    void setPosterPlaceholder_posterChangedMeanwhile_doesNothing() {
+        when(filmsRepository.setPosterPlaceholder("123", "inception.jpg", "data:image/png;base64,AAAA"))
+                .thenReturn(Optional.empty());
+
+        assertTrue(filmsService.setPosterPlaceholder("123", "inception.jpg", "data:image/png;base64,AAAA")
+                .isEmpty());
+        verifyNoInteractions(catalogVersionService, eventPublisher);
+    }
+
+    @Test
+    void addFilms_insertsBatchAndBumpsCatalogOnce() {
+        FilmDTO matrix = new FilmDTO("The Matrix", LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves",
+                GENRE.ACTION, 136, "matrix.jpg", "description");
+        FilmDTO inception = matrix.withTitle("Inception");
+        when(idService.generateId()).thenReturn("1", "2");
+        when(filmsRepository.insert(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Film> result = filmsService.addFilms(List.of(matrix, inception));
+
+        assertEquals(List.of("1", "2"), result.stream().map(Film::id).toList());
+        assertEquals(1L, result.getFirst().version());
+        verify(catalogVersionService, times(1)).bumpFilmsVersion();
+        verify(eventPublisher, times(2)).publishEvent(any(FilmChangedEvent.class));
+    }
+
+    @Test
+    void addFilms_filmWithoutTitle_insertsNothing() {
+        FilmDTO untitled = new FilmDTO(" ", null, null, null, null, null, null, null);
+
+        assertThrows(NullPointerException.class, () -> filmsService.addFilms(List.of(untitled)));
+        verify(filmsRepository, never()).insert(anyList());
+        verifyNoInteractions(catalogVersionService);
+    }
+
+    @Test
+    void saveFilms_writesValidFilmsInOneBulkAndReportsEachItem() {
+        FilmDTO matrix = new FilmDTO("The Matrix", LocalDate.of(1999, 3, 31), 8.7, "Keanu Reeves",
+                GENRE.ACTION, 136, "matrix.jpg", "description");
+        FilmDTO untitled = matrix.withTitle(" ");
+        FilmDTO badRate = matrix.withTitle("Inception").withRate(11.0);
+        FilmDTO rejected = matrix.withTitle("Memento");
+        when(idService.generateIds(2)).thenReturn(List.of("1", "2"));
+        when(filmsRepository.bulkWrite(anyList(), eq(Map.of()))).thenReturn(Map.of(1, "E11000 duplicate key"));
+
+        FilmBatchResult result = filmsService.saveFilms(List.of(matrix, untitled, badRate, rejected), false);
+
+        assertEquals(1, result.created());
+        assertEquals(0, result.updated());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(
+                new FilmBatchItem(0, "1", FilmBatchItem.Status.CREATED, null),
+                FilmBatchItem.failed(1, "Title cannot be null or blank."),
+                FilmBatchItem.failed(2, "Rate must be between 0.0 and 10.0: 11.0"),
+                FilmBatchItem.failed(3, "E11000 duplicate key")), result.items());
+        verify(filmsRepository, never()).findFilmsByTitleIn(any());
+        verify(catalogVersionService, times(1)).bumpFilmsVersion();
+        verify(eventPublisher, times(1)).publishEvent(any(FilmChangedEvent.class));
+    }
+
+    @Test
+    void saveFilms_upsert_mergesIntoStoredFilmWithSameTitleAndReleaseDate() {
+        Film stored = new Film("7", "The Matrix", LocalDate.of(1999, 3, 31), 8.5, "Keanu Reeves",
+                GENRE.ACTION, 136, "matrix.jpg", "description", 3L, Instant.EPOCH);
+        FilmDTO update = new FilmDTO("The Matrix", LocalDate.of(1999, 3, 31), 8.7, null, null, null, null, null);
+        FilmDTO remake = update.withReleaseDate(LocalDate.of(2031, 1, 1));
+        when(filmsRepository.findFilmsByTitleIn(Set.of("The Matrix"))).thenReturn(List.of(stored));
+        when(idService.generateIds(1)).thenReturn(List.of("8"));
+        when(filmsRepository.bulkWrite(anyList(), eq(Map.of("7", 3L)))).thenReturn(Map.of());
+
+        FilmBatchResult result = filmsService.saveFilms(List.of(update, remake, update), true);
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(List.of(
+                new FilmBatchItem(0, "7", FilmBatchItem.Status.UPDATED, null),
+                new FilmBatchItem(1, "8", FilmBatchItem.Status.CREATED, null),
+                FilmBatchItem.failed(2, "Same title and release date as film 0")), result.items());
+
+        ArgumentCaptor<List<Film>> written = ArgumentCaptor.captor();
+        verify(filmsRepository).bulkWrite(written.capture(), eq(Map.of("7", 3L)));
+        Film merged = written.getValue().getFirst();
+        assertEquals(8.7, merged.rate());
+        assertEquals("Keanu Reeves", merged.casts());
+        assertEquals(4L, merged.version());
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(stored, merged));
+    }
+
+    @Test
+    void saveFilms_emptyOrOversizedBatch_throwsException() {
+        FilmDTO film = new FilmDTO("Inception", null, null, null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> filmsService.saveFilms(List.of(), false));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.saveFilms(
+                Collections.nCopies(FilmsService.MAX_BATCH_SIZE + 1, film), false));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void saveFilms_nothingWritten_leavesCatalogVersion() {
+        FilmDTO untitled = new FilmDTO(null, null, null, null, null, null, null, null);
+
+        FilmBatchResult result = filmsService.saveFilms(List.of(untitled), false);
+
+        assertEquals(1, result.failed());
+        verifyNoInteractions(catalogVersionService, eventPublisher);
+    }
+
+    @Test
+    void deleteFilms_byIds_deletesFoundFilmsInOneCall() {
+        Film inception = new Film("1", null, LocalDate.of(2010, 7, 16), 8.8, null, GENRE.SCI_FI, 148,
+                "inception.jpg", null, 1L, null);
+        when(filmsRepository.findEventStates(List.of("1", "2"))).thenReturn(List.of(inception));
+        when(filmsRepository.deleteFilms(eq(List.of("1", "2")), any(Instant.class))).thenReturn(1L);
+
+        assertEquals(new FilmBulkResult(1, 1), filmsService.deleteFilms(List.of("1", "2")));
+        verify(catalogVersionService, times(1)).bumpFilmsVersion();
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(inception, null));
+    }
+
+    @Test
+    void deleteFilms_filmWrittenInBetween_isLeftOutOfTheEvents() {
+        Film inception = new Film("1", null, LocalDate.of(2010, 7, 16), 8.8, null, GENRE.SCI_FI, 148,
+                "inception.jpg", null, 1L, null);
+        Film memento = new Film("2", null, LocalDate.of(2000, 9, 5), 8.4, null, GENRE.THRILLER, 113,
+                "memento.jpg", null, 1L, null);
+        when(filmsRepository.findEventStates(List.of("1", "2")))
+                .thenReturn(List.of(inception, memento))
+                .thenReturn(List.of(memento));
+        when(filmsRepository.deleteFilms(eq(List.of("1", "2")), any(Instant.class))).thenReturn(1L);
+
+        assertEquals(new FilmBulkResult(2, 1), filmsService.deleteFilms(List.of("1", "2")));
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(inception, null));
+        verify(eventPublisher, never()).publishEvent(new FilmChangedEvent(memento, null));
+    }
+
+    @Test
+    void deleteFilms_byFilter_deletesOnTheFilter() {
+        FilmFilter filter = new FilmFilter(null, null, 1999, List.of("DRAMA"), null,
+                null, null, null, null, null, null, null);
+        FilmQuery query = FilmQuery.builder()
+                .releasedBefore(LocalDate.of(2000, 1, 1))
+                .genres(Set.of(GENRE.DRAMA))
+                .build();
+        Film film = new Film("1", null, LocalDate.of(1994, 7, 6), 8.8, null, GENRE.DRAMA, 142,
+                null, null, 1L, null);
+        when(filmsRepository.findEventStates(query, FilmsService.MAX_BATCH_SIZE + 1)).thenReturn(List.of(film));
+        when(filmsRepository.deleteFilms(eq(query), any(Instant.class))).thenReturn(1L);
+
+        assertEquals(new FilmBulkResult(1, 1), filmsService.deleteFilms(filter));
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(film, null));
+    }
+
+    @Test
+    void deleteFilms_byFilter_nothingSelected_skipsTheWrite() {
+        FilmFilter filter = FilmFilter.of(1999, "DRAMA", null);
+        when(filmsRepository.findEventStates(any(FilmQuery.class), anyInt())).thenReturn(List.of());
+
+        assertEquals(new FilmBulkResult(0, 0), filmsService.deleteFilms(filter));
+        verify(filmsRepository, never()).deleteFilms(any(FilmQuery.class), any());
+        verifyNoInteractions(catalogVersionService);
+    }
+
+    @Test
+    void bulkChanges_filterSelectsTooManyFilms_throwsException() {
+        Film film = new Film("1", null, null, 8.8, null, GENRE.DRAMA, null, null, null, 1L, null);
+        when(filmsRepository.findEventStates(any(FilmQuery.class), anyInt()))
+                .thenReturn(Collections.nCopies(FilmsService.MAX_BATCH_SIZE + 1, film));
+        FilmDTO changes = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> filmsService.deleteFilms(FilmFilter.of(1999, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> filmsService.updateFilms(FilmFilter.of(1999, null, null), changes));
+        verify(filmsRepository, never()).deleteFilms(any(FilmQuery.class), any());
+        verify(filmsRepository, never()).updateFilms(any(FilmQuery.class), any(), any());
+    }
+
+    @Test
+    void bulkChanges_withoutFilterOrIds_throwException() {
+        FilmDTO changes = new FilmDTO(null, null, null, null, GENRE.DRAMA, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> filmsService.deleteFilms(FilmFilter.of(null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.deleteFilms(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> filmsService.updateFilms(FilmFilter.of(null, null, null), changes));
+        assertThrows(IllegalArgumentException.class, () -> filmsService.updateFilms((List<String>) null, changes));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void updateFilms_noOrInvalidChanges_throwException() {
+        FilmDTO blankTitle = new FilmDTO(" ", null, null, null, null, null, null, null);
+        FilmDTO badRate = blankTitle.withRate(-1.0);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> filmsService.updateFilms(List.of("1"), blankTitle));
+        assertEquals("No changes given", ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> filmsService.updateFilms(List.of("1"), badRate));
+        verifyNoInteractions(filmsRepository);
+    }
+
+    @Test
+    void updateFilms_byIds_publishesTheFilmsAsStored() {
+        Film inception = new Film("1", null, LocalDate.of(2010, 7, 16), 8.8, null, GENRE.SCI_FI, 148,
+                "inception.jpg", null, 2L, null);
+        Film memento = new Film("2", null, LocalDate.of(2000, 9, 5), 8.4, null, GENRE.THRILLER, 113,
+                "memento.jpg", null, 1L, null);
+        Film updatedInception = inception.withGenre(GENRE.DRAMA).withVersion(3L);
+        FilmDTO changes = new FilmDTO(null, null, null, null, GENRE.DRAMA, null, null, null);
+        when(filmsRepository.findEventStates(List.of("1", "2"))).thenReturn(List.of(inception, memento));
+        // memento was written in between, so the update left it alone
+        when(filmsRepository.updateFilms(eq(List.of("1", "2")), eq(changes), any())).thenReturn(1L);
+        when(filmsRepository.findEventStatesUpdatedAt(any(), any())).thenReturn(List.of(updatedInception));
+
+        assertEquals(new FilmBulkResult(2, 1), filmsService.updateFilms(List.of("1", "2"), changes));
+
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(filmsRepository).updateFilms(eq(List.of("1", "2")), eq(changes), updatedAt.capture());
+        verify(filmsRepository).findEventStatesUpdatedAt(Set.of("1", "2"), updatedAt.getValue());
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(inception, updatedInception));
+        verify(catalogVersionService, times(1)).bumpFilmsVersion();
+    }
+
+    @Test
+    void updateFilms_byFilter_updatesOnTheFilter() {
+        FilmQuery query = FilmQuery.builder()
+                .releasedFrom(LocalDate.of(1999, 1, 1))
+                .releasedBefore(LocalDate.of(2000, 1, 1))
+                .build();
+        Film film = new Film("1", null, LocalDate.of(1999, 3, 31), 8.7, null, GENRE.SCI_FI, 136,
+                null, null, 1L, null);
+        FilmDTO changes = new FilmDTO(null, null, 9.0, null, null, null, null, null);
+        when(filmsRepository.findEventStates(query, FilmsService.MAX_BATCH_SIZE + 1)).thenReturn(List.of(film));
+        when(filmsRepository.updateFilms(eq(query), eq(changes), any())).thenReturn(1L);
+        when(filmsRepository.findEventStatesUpdatedAt(any(), any())).thenReturn(List.of(film.withRate(9.0).withVersion(2L)));
+
+        assertEquals(new FilmBulkResult(1, 1), filmsService.updateFilms(FilmFilter.of(1999, null, null), changes));
+        verify(eventPublisher).publishEvent(new FilmChangedEvent(film, film.withRate(9.0).withVersion(2L)));
+    }
+}
@@ -2,11 +2,20 @@ package org.example.backend.service;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class IdServiceTest {
-    private final IdService idService = new IdService();
+    private final IdService idService = new IdService("uuid7");
 
     @Test
     void generateId_returnsUniqueString() {
@@ -18,4 +27,55 @@ class IdServiceTest {
         assertNotEquals(id1, id2);
     }
 
-}
\ No newline at end of file
+    @Test
+    void generateIds_returnsRequestedNumberOfUniqueIds() {
+        List<String> ids = idService.generateIds(100);
+
+        assertEquals(100, ids.size());
+        assertEquals(100, Set.copyOf(ids).size());
+    }
+
+    @Test
+    void generateId_uuid7_startsWithCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = UUID.fromString(idService.generateId());
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        // at most a few milliseconds ahead if earlier ids on this thread borrowed some
+        assertTrue(millis >= before && millis <= after + 5, millis + " not in " + before + ".." + after);
+    }
+
+    @Test
+    void generateIds_uuid7_areInOrder() {
+        List<String> ids = idService.generateIds(10_000);
+
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(sorted, ids);
+        assertEquals(10_000, Set.copyOf(ids).size());
+    }
+
+    @Test
+    void uuid7_packsTimeCounterAndRandomBits() {
+        UUID id = IdService.uuid7(0x0190_1234_5678L, 0xABC, -1L);
+
+        assertEquals("01901234-5678-7abc-bfff-ffffffffffff", id.toString());
+        assertEquals("00000000-0000-7000-8000-000000000000", IdService.uuid7(0, 0, 0).toString());
+    }
+
+    @Test
+    void generateId_random_isVersion4() {
+        UUID id = UUID.fromString(new IdService("random").generateId());
+
+        assertEquals(4, id.version());
+    }
+
+    @Test
+    void constructor_unknownFormat_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new IdService("snowflake"));
+    }
+
+}
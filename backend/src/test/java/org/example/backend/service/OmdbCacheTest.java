@@ -0,0 +1,217 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.exceptions.OmdbUnavailableException;
+import org.example.backend.model.FilmDTO;
+import org.example.backend.model.GENRE;
+import org.example.backend.model.OmdbPriority;
+import org.example.backend.model.OmdbResult;
+import org.example.backend.model.Search;
+import org.example.backend.model.SearchResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbCacheTest {
+
+    private final FilmDTO matrix = new FilmDTO("The Matrix", LocalDate.of(1999, 3, 31), 8.7,
+            "Keanu Reeves", GENRE.ACTION, 136, "matrix.jpg", "description");
+    private final SearchResponse matrixSearch = new SearchResponse(
+            List.of(new Search("The Matrix", "1999", "tt0133093", "movie", "matrix.jpg")), "1", "True");
+
+    private SimpleMeterRegistry meterRegistry;
+    private OmdbCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new OmdbCache(true, 100_000, Duration.ofHours(1), Duration.ofHours(1), Duration.ofDays(7), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private <V> OmdbCache.Loader<V> remote(Supplier<V> remote) {
+        return new OmdbCache.Loader<>(Optional::empty, priority -> remote.get());
+    }
+
+    private FilmDTO loadMovie(String imdbId) {
+        return cache.movie(imdbId, OmdbPriority.INTERACTIVE, remote(() -> {
+            loads.incrementAndGet();
+            return matrix;
+        })).value();
+    }
+
+    private SearchResponse loadSearch(String title) {
+        return cache.search(title, OmdbPriority.INTERACTIVE, remote(() -> {
+            loads.incrementAndGet();
+            return matrixSearch;
+        })).value();
+    }
+
+    @Test
+    void movie_sameIdTwice_loadsOnceAndRecordsHit() {
+        assertEquals(matrix, loadMovie("tt0133093"));
+        assertEquals(matrix, loadMovie("tt0133093"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "omdb.movies").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void search_titlesDifferingInCaseAndSpaces_shareOneEntry() {
+        loadSearch("The Matrix");
+        loadSearch("  the   MATRIX ");
+
+        assertEquals(1, loads.get());
+        assertEquals("the matrix", OmdbCache.normalizeTitle(" The \tMatrix "));
+    }
+
+    @Test
+    void movie_loaderThrows_isNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> cache.movie("tt0000001", OmdbPriority.INTERACTIVE,
+                remote(() -> {
+                    throw new IllegalArgumentException("Released date cannot be null or blank");
+                })));
+
+        assertEquals(matrix, loadMovie("tt0000001"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void movie_overWeight_evictsEntries() {
+        cache = new OmdbCache(true, 200, Duration.ofHours(1), Duration.ofHours(1), Duration.ofDays(7), meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            loadMovie("tt000000" + i);
+        }
+
+        assertTrue(cache.size() < 10);
+    }
+
+    @Test
+    void clear_dropsEverything() {
+        loadMovie("tt0133093");
+        loadSearch("Matrix");
+        cache.clear();
+        loadMovie("tt0133093");
+        loadSearch("Matrix");
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void disabled_alwaysLoads() {
+        cache = new OmdbCache(false, 100_000, Duration.ofHours(1), Duration.ofHours(1), Duration.ofDays(7), meterRegistry);
+
+        loadMovie("tt0133093");
+        loadMovie("tt0133093");
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void movie_concurrentMisses_shareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OmdbCache.Loader<FilmDTO> slowLoader = remote(() -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return matrix;
+        });
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(4)) {
+            List<Future<FilmDTO>> results = new ArrayList<>();
+            results.add(callers.submit(() -> cache.movie("tt0133093", OmdbPriority.INTERACTIVE, slowLoader).value()));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> cache.movie("tt0133093", OmdbPriority.INTERACTIVE, slowLoader).value()));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<FilmDTO> result : results) {
+                assertEquals(matrix, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void movie_pastTtl_servedStaleAndRefreshedInBackground() {
+        cache = new OmdbCache(true, 100_000, Duration.ofMillis(50), Duration.ofHours(1), Duration.ofDays(7),
+                meterRegistry);
+        List<OmdbPriority> priorities = new CopyOnWriteArrayList<>();
+        FilmDTO remastered = matrix.withRate(9.0);
+        OmdbCache.Loader<FilmDTO> loader = new OmdbCache.Loader<>(Optional::empty, priority -> {
+            priorities.add(priority);
+            return priorities.size() == 1 ? matrix : remastered;
+        });
+
+        assertFalse(cache.movie("tt0133093", OmdbPriority.INTERACTIVE, loader).stale());
+        await(() -> {
+            OmdbResult<FilmDTO> result = cache.movie("tt0133093", OmdbPriority.INTERACTIVE, loader);
+            return result.stale() && result.value().equals(matrix);
+        });
+        await(() -> cache.movie("tt0133093", OmdbPriority.INTERACTIVE, loader).value().equals(remastered));
+
+        assertEquals(OmdbPriority.BACKGROUND, priorities.get(1));
+    }
+
+    @Test
+    void movie_staleStoredCopy_servedWhileOmdbFails() {
+        OmdbCache.Loader<FilmDTO> loader = new OmdbCache.Loader<>(
+                () -> Optional.of(new OmdbCache.Entry<>(matrix, Instant.now().minus(Duration.ofDays(2)))),
+                priority -> {
+                    loads.incrementAndGet();
+                    throw new OmdbUnavailableException("OMDb is unavailable", Duration.ofSeconds(30));
+                });
+
+        OmdbResult<FilmDTO> result = cache.movie("tt0133093", OmdbPriority.INTERACTIVE, loader);
+
+        assertEquals(new OmdbResult<>(matrix, true), result);
+        await(() -> meterRegistry.get("omdb.cache.refreshes").tag("result", "failure").counter().count() == 1);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void movie_freshStoredCopy_skipsOmdb() {
+        OmdbCache.Loader<FilmDTO> loader = new OmdbCache.Loader<>(
+                () -> Optional.of(new OmdbCache.Entry<>(matrix, Instant.now())),
+                priority -> {
+                    throw new AssertionError("OMDb called");
+                });
+
+        assertEquals(new OmdbResult<>(matrix, false), cache.movie("tt0133093", OmdbPriority.INTERACTIVE, loader));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+}
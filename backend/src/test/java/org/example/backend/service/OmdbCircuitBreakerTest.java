@@ -0,0 +1,158 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.exceptions.OmdbQuotaException;
+import org.example.backend.exceptions.OmdbUnavailableException;
+import org.example.backend.model.OmdbPriority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbCircuitBreakerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OmdbCircuitBreaker breaker;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = breaker(Duration.ofMinutes(1));
+        calls = new AtomicInteger();
+    }
+
+    private OmdbCircuitBreaker breaker(Duration openFor) {
+        return new OmdbCircuitBreaker(2, openFor, 3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5),
+                meterRegistry);
+    }
+
+    private String failing() {
+        calls.incrementAndGet();
+        throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+    }
+
+    @Test
+    void call_transientFailureThenSuccess_retries() {
+        String result = breaker.call(OmdbPriority.BACKGROUND, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ResourceAccessException("Read timed out");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2.0, meterRegistry.get("omdb.circuit.retries").counter().count());
+        assertEquals(OmdbCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_interactive_isNotRetried() {
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.INTERACTIVE, this::failing));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.get("omdb.circuit.retries").counter().count());
+    }
+
+    @Test
+    void call_retriesStopAtMaxElapsed() {
+        breaker = new OmdbCircuitBreaker(2, Duration.ofMinutes(1), 10, Duration.ofMillis(40), Duration.ofMillis(40),
+                Duration.ofMillis(50), meterRegistry);
+
+        long start = System.nanoTime();
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, () -> {
+            calls.incrementAndGet();
+            sleepQuietly(30);
+            throw new ResourceAccessException("Read timed out");
+        }));
+
+        assertTrue(calls.get() < 10, "calls: " + calls.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 300);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void call_keepsFailing_opensAndThenFailsFast() {
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+        assertEquals(6, calls.get());
+        assertEquals(OmdbCircuitBreaker.State.OPEN, breaker.state());
+
+        OmdbUnavailableException rejected = assertThrows(OmdbUnavailableException.class,
+                () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+
+        assertEquals(6, calls.get());
+        assertTrue(rejected.getRetryAfter().toSeconds() > 0);
+        assertEquals(1.0, meterRegistry.get("omdb.circuit.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("omdb.circuit.state").gauge().value());
+    }
+
+    @Test
+    void call_afterOpenFor_trialSuccessCloses() throws InterruptedException {
+        breaker = breaker(Duration.ofMillis(20));
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+
+        Thread.sleep(30);
+
+        assertEquals(OmdbCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals("ok", breaker.call(OmdbPriority.BACKGROUND, () -> "ok"));
+        assertEquals(OmdbCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_trialFails_reopens() throws InterruptedException {
+        breaker = breaker(Duration.ofMillis(20));
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+        Thread.sleep(30);
+
+        assertThrows(OmdbUnavailableException.class, () -> breaker.call(OmdbPriority.BACKGROUND, this::failing));
+
+        assertEquals(OmdbCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void call_clientErrorsAndQuota_passThroughWithoutRetryOrCounting() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpClientErrorException.class, () -> breaker.call(OmdbPriority.BACKGROUND, () -> {
+                calls.incrementAndGet();
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED);
+            }));
+            assertThrows(OmdbQuotaException.class, () -> breaker.call(OmdbPriority.BACKGROUND, () -> {
+                throw new OmdbQuotaException("OMDb daily quota used up", Duration.ofHours(1));
+            }));
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(OmdbCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void isTransient_tooManyRequests_isRetried() {
+        assertTrue(OmdbCircuitBreaker.isTransient(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertFalse(OmdbCircuitBreaker.isTransient(new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+    }
+
+    @Test
+    void backoff_staysUnderCap() {
+        for (int attempt = 1; attempt < 40; attempt++) {
+            long backoff = breaker.backoff(attempt);
+            assertTrue(backoff >= 0 && backoff <= Duration.ofMillis(5).toNanos(), String.valueOf(backoff));
+        }
+    }
+}
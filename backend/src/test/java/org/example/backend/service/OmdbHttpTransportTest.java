@@ -0,0 +1,130 @@
+package org.example.backend.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbHttpTransportTest {
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private OmdbHttpTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getQuery().contains("slow")) {
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "{\"Response\":\"True\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (transport != null) {
+            transport.close();
+        }
+        server.stop(0);
+    }
+
+    private OmdbHttpTransport transport(String kind) {
+        return transport(kind, new MockEnvironment());
+    }
+
+    private OmdbHttpTransport transport(String kind, MockEnvironment environment) {
+        return new OmdbHttpTransport(kind, 4, 2, Duration.ofSeconds(1), Duration.ofMillis(500),
+                Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMinutes(5),
+                meterRegistry, environment);
+    }
+
+    private RestClient client() {
+        return RestClient.builder()
+                .requestFactory(transport.requestFactory().orElseThrow())
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .build();
+    }
+
+    @Test
+    void pooled_reusesConnectionsAndRecordsLeases() {
+        transport = transport("pooled");
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, transport.requestFactory().orElseThrow());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("{\"Response\":\"True\"}", client().get().uri("/?s=matrix").retrieve().body(String.class));
+        }
+
+        assertEquals(3, meterRegistry.get("omdb.http.lease").timer().count());
+        assertEquals(4.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "omdb")
+                .gauge().value());
+        assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "omdb").tag("state", "available").gauge().value());
+    }
+
+    @Test
+    void pooled_slowResponse_timesOut() {
+        transport = transport("pooled");
+
+        assertThrows(ResourceAccessException.class,
+                () -> client().get().uri("/?s=slow").retrieve().body(String.class));
+    }
+
+    @Test
+    void jdk_servesRequests() {
+        transport = transport("jdk");
+        assertInstanceOf(JdkClientHttpRequestFactory.class, transport.requestFactory().orElseThrow());
+
+        assertEquals("{\"Response\":\"True\"}", client().get().uri("/?s=matrix").retrieve().body(String.class));
+        assertThrows(ResourceAccessException.class,
+                () -> client().get().uri("/?s=slow").retrieve().body(String.class));
+    }
+
+    @Test
+    void jdk_poolSettings_areRejected() {
+        MockEnvironment environment = new MockEnvironment().withProperty("omdb.http.read-timeout", "5s");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transport("jdk", environment));
+        assertTrue(exception.getMessage().contains("omdb.http.read-timeout"));
+    }
+
+    @Test
+    void defaultTransport_leavesRequestFactoryToTheBuilder() throws Exception {
+        transport = transport("default");
+
+        assertTrue(transport.requestFactory().isEmpty());
+        assertTrue(meterRegistry.find("omdb.http.lease").timers().isEmpty());
+    }
+
+    @Test
+    void unknownTransport_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> transport("netty"));
+    }
+}
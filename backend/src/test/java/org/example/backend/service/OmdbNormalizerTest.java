@@ -0,0 +1,107 @@
+package org.example.backend.service;
+
+import org.example.backend.model.GENRE;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbNormalizerTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "136 min|136",
+            "N/A|0",
+            "null|0",
+            "''|0",
+            "1,200 min|1200",
+            "2 h 16 min|216"
+    })
+    void parseRuntime_keepsEveryDigit(String runtime, int expected) {
+        assertEquals(expected, OmdbNormalizer.parseRuntime(runtime));
+    }
+
+    @Test
+    void parseRuntime_outOfRange_throws() {
+        assertThrows(NumberFormatException.class, () -> OmdbNormalizer.parseRuntime("99999999999 min"));
+    }
+
+    @Test
+    void parseReleased_commonShape() {
+        assertEquals(LocalDate.of(1999, 3, 31), OmdbNormalizer.parseReleased("31 Mar 1999"));
+        assertEquals(LocalDate.of(2024, 2, 29), OmdbNormalizer.parseReleased("29 Feb 2024"));
+    }
+
+    @Test
+    void parseReleased_impossibleDay_isResolvedLikeTheFormatter() {
+        assertEquals(LocalDate.of(2023, 2, 28), OmdbNormalizer.parseReleased("31 Feb 2023"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"N/A", "31 mar 1999", "1999-03-31", "3 Mar 1999", "31 Mar 199x", "00 Mar 1999"})
+    void parseReleased_unparseable_throwsDateTimeParseException(String released) {
+        assertThrows(DateTimeParseException.class, () -> OmdbNormalizer.parseReleased(released));
+    }
+
+    @Test
+    void parseReleased_blank_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> OmdbNormalizer.parseReleased(" "));
+        assertThrows(IllegalArgumentException.class, () -> OmdbNormalizer.parseReleased(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"8.7", "10", "0.1", "7.", ".5", "123456789012345", "1234567890.123456789", " 8.7", "1e1"})
+    void parseRating_matchesParseDouble(String rating) {
+        assertEquals(Double.parseDouble(rating), OmdbNormalizer.parseRating(rating));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"N/A", "n/a", "", ".", "8.7/10", "abc"})
+    void parseRating_notANumber_isNull(String rating) {
+        assertNull(OmdbNormalizer.parseRating(rating));
+    }
+
+    @Test
+    void parseGenre_firstKnownGenre() {
+        assertEquals(GENRE.ACTION, OmdbNormalizer.parseGenre("Action, Sci-Fi"));
+        assertEquals(GENRE.SCI_FI, OmdbNormalizer.parseGenre("Western, sci fi"));
+        assertEquals(GENRE.DRAMA, OmdbNormalizer.parseGenre("Biography, Crime"));
+        assertEquals(GENRE.SCI_FI, OmdbNormalizer.parseGenre(" SCI_FI "));
+    }
+
+    @Test
+    void parseGenre_unknownOrEmpty_isNull() {
+        assertNull(OmdbNormalizer.parseGenre("Doc, SciFi"));
+        assertNull(OmdbNormalizer.parseGenre("Crime, Western, Musical"));
+        assertNull(OmdbNormalizer.parseGenre(""));
+        assertNull(OmdbNormalizer.parseGenre(",,"));
+        assertNull(OmdbNormalizer.parseGenre(null));
+    }
+
+    // every genre OMDb uses, its synonyms for ours included
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "Action|ACTION", "Adventure|null", "Animation|ANIMATION", "Animated|ANIMATION", "Biography|DRAMA",
+            "Comedy|COMEDY", "Crime|null", "Documentary|DOCUMENTARY", "Drama|DRAMA", "Family|null",
+            "Fantasy|FANTASY", "Film-Noir|THRILLER", "film noir|THRILLER", "History|null", "Horror|HORROR",
+            "Music|null", "Musical|null", "Mystery|THRILLER", "News|null", "Romance|ROMANCE", "Sci-Fi|SCI_FI",
+            "Science Fiction|SCI_FI", "science-fiction|SCI_FI", "Short|null", "Sport|null", "Thriller|THRILLER",
+            "War|null", "Western|null", "'Western, Mystery, Drama'|THRILLER"
+    })
+    void parseGenre_omdbGenres(String genres, GENRE expected) {
+        assertEquals(expected, OmdbNormalizer.parseGenre(genres));
+    }
+
+    @Test
+    void parseGenres_everyKnownGenreOnce() {
+        assertEquals(List.of(GENRE.DRAMA, GENRE.SCI_FI, GENRE.THRILLER),
+                OmdbNormalizer.parseGenres("Biography, Sci-Fi, Drama, Western, Mystery, sci-fi"));
+        assertEquals(List.of(), OmdbNormalizer.parseGenres(null));
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.example.backend.exceptions.OmdbQuotaException;
+import org.example.backend.model.OmdbPriority;
+import org.example.backend.model.OmdbUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OmdbRateLimiterTest {
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    // stands in for today's omdbUsage document
+    private final AtomicLong stored = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OmdbUsage.class))).thenAnswer(invocation -> {
+            Update update = invocation.getArgument(1);
+            long delta = update.getUpdateObject().get("$inc", Document.class).get("count", Number.class).longValue();
+            return new OmdbUsage(LocalDate.now(ZoneOffset.UTC).toString(), stored.addAndGet(delta));
+        });
+    }
+
+    private OmdbRateLimiter limiter(double perSecond, int burst, int maxWaiting, long dailyQuota, long reserve) {
+        OmdbRateLimiter limiter = new OmdbRateLimiter(mongoTemplate, perSecond, burst, maxWaiting,
+                Duration.ofSeconds(2), Duration.ofSeconds(5), dailyQuota, reserve, 50, meterRegistry);
+        limiter.loadUsage();
+        return limiter;
+    }
+
+    @Test
+    void acquire_burstGoesThroughThenWaitsForRefill() {
+        OmdbRateLimiter limiter = limiter(10, 3, 10, 1000, 0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(OmdbPriority.INTERACTIVE);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 50, "fourth call should wait for a token, took " + elapsedMillis + "ms");
+        assertEquals(4, limiter.usedToday());
+        assertEquals(996.0, meterRegistry.get("omdb.quota.remaining").gauge().value());
+    }
+
+    @Test
+    void acquire_interactiveWaitsTooLong_isRejected() {
+        OmdbRateLimiter limiter = new OmdbRateLimiter(mongoTemplate, 0.1, 1, 10, Duration.ofMillis(50),
+                Duration.ofSeconds(5), 1000, 0, 50, meterRegistry);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+
+        assertThrows(OmdbQuotaException.class, () -> limiter.acquire(OmdbPriority.INTERACTIVE));
+        assertEquals(1.0, meterRegistry.get("omdb.rate.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void acquire_backgroundWaitsTooLong_isRejected() {
+        OmdbRateLimiter limiter = new OmdbRateLimiter(mongoTemplate, 0.1, 1, 10, Duration.ofSeconds(5),
+                Duration.ofMillis(50), 1000, 0, 50, meterRegistry);
+        limiter.acquire(OmdbPriority.BACKGROUND);
+
+        long start = System.nanoTime();
+        assertThrows(OmdbQuotaException.class, () -> limiter.acquire(OmdbPriority.BACKGROUND));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1.0, meterRegistry.get("omdb.rate.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void acquire_reservesQuotaInBlocks() {
+        OmdbRateLimiter limiter = limiter(1000, 100, 10, 1000, 0);
+
+        for (int i = 0; i < 60; i++) {
+            limiter.acquire(OmdbPriority.INTERACTIVE);
+        }
+
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(OmdbUsage.class));
+        assertEquals(100, stored.get());
+        assertEquals(60, limiter.usedToday());
+        assertEquals(940.0, meterRegistry.get("omdb.quota.remaining").gauge().value());
+    }
+
+    @Test
+    void releaseReservation_givesUnusedCallsBack() {
+        OmdbRateLimiter limiter = limiter(1000, 10, 10, 1000, 0);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+
+        limiter.releaseReservation();
+
+        assertEquals(2, stored.get());
+        assertEquals(2, limiter.usedToday());
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        assertEquals(52, stored.get());
+    }
+
+    @Test
+    void acquire_queueFull_isRejectedAtOnce() throws Exception {
+        OmdbRateLimiter limiter = limiter(2, 1, 1, 1000, 0);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> waiter = executor.submit(() -> limiter.acquire(OmdbPriority.BACKGROUND));
+            while (meterRegistry.get("omdb.rate.waiting").tag("priority", "background").gauge().value() < 1) {
+                Thread.sleep(5);
+            }
+
+            long start = System.nanoTime();
+            assertThrows(OmdbQuotaException.class, () -> limiter.acquire(OmdbPriority.BACKGROUND));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void acquire_interactiveOvertakesWaitingBackground() throws Exception {
+        OmdbRateLimiter limiter = limiter(10, 1, 10, 1000, 0);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        List<OmdbPriority> order = new CopyOnWriteArrayList<>();
+        CountDownLatch backgroundWaiting = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    backgroundWaiting.countDown();
+                    limiter.acquire(OmdbPriority.BACKGROUND);
+                    order.add(OmdbPriority.BACKGROUND);
+                });
+            }
+            backgroundWaiting.await();
+            Thread.sleep(20);
+            executor.submit(() -> {
+                limiter.acquire(OmdbPriority.INTERACTIVE);
+                order.add(OmdbPriority.INTERACTIVE);
+            });
+        }
+
+        assertEquals(OmdbPriority.INTERACTIVE, order.getFirst());
+        assertEquals(3, order.size());
+    }
+
+    @Test
+    void acquire_quotaUsedUp_rejectsUntilTomorrow() {
+        OmdbRateLimiter limiter = limiter(1000, 10, 10, 2, 0);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+
+        OmdbQuotaException exception = assertThrows(OmdbQuotaException.class,
+                () -> limiter.acquire(OmdbPriority.INTERACTIVE));
+
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofDays(1)) <= 0);
+        assertEquals(0, limiter.remainingToday());
+        assertEquals(2, stored.get());
+    }
+
+    @Test
+    void acquire_backgroundStopsAtInteractiveReserve() {
+        OmdbRateLimiter limiter = limiter(1000, 10, 10, 3, 1);
+        limiter.acquire(OmdbPriority.BACKGROUND);
+        limiter.acquire(OmdbPriority.BACKGROUND);
+
+        assertThrows(OmdbQuotaException.class, () -> limiter.acquire(OmdbPriority.BACKGROUND));
+        assertEquals(2, stored.get());
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        assertEquals(3, stored.get());
+    }
+
+    @Test
+    void acquire_usageNotStored_stillCountsInMemory() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OmdbUsage.class))).thenThrow(new DataAccessResourceFailureException("down"));
+        OmdbRateLimiter limiter = limiter(1000, 10, 10, 1000, 0);
+
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+        limiter.acquire(OmdbPriority.INTERACTIVE);
+
+        assertEquals(2, limiter.usedToday());
+    }
+}
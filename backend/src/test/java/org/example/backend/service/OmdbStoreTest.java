@@ -0,0 +1,99 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.model.MovieDetails;
+import org.example.backend.model.OmdbResponse;
+import org.example.backend.model.Search;
+import org.example.backend.model.SearchResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OmdbStoreTest {
+
+    private final MovieDetails matrix = new MovieDetails("tt0133093", "The Matrix", "1999", "8.7",
+            "31 Mar 1999", "136 min", "Action, Sci-Fi", "Keanu Reeves", "plot", "matrix.jpg");
+    private final SearchResponse matrixSearch = new SearchResponse(
+            List.of(new Search("The Matrix", "1999", "tt0133093", "movie", "matrix.jpg")), "1", "True");
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private OmdbStore store;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        store = new OmdbStore(mongoTemplate, true, 10, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.shutdown();
+    }
+
+    @Test
+    void findMovie_storedResponse_returnsRawDetailsWithFetchTime() {
+        Instant fetchedAt = Instant.parse("2025-01-01T00:00:00Z");
+        when(mongoTemplate.findById("movie:tt0133093", OmdbResponse.class))
+                .thenReturn(new OmdbResponse("movie:tt0133093", matrix, null, fetchedAt));
+
+        assertEquals(new OmdbCache.Entry<>(matrix, fetchedAt), store.findMovie("tt0133093").orElseThrow());
+        assertEquals(1.0, meterRegistry.get("omdb.store.gets").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void findSearch_looksUpNormalizedTitle() {
+        when(mongoTemplate.findById("search:the matrix", OmdbResponse.class))
+                .thenReturn(new OmdbResponse("search:the matrix", null, matrixSearch, Instant.now()));
+
+        assertEquals(matrixSearch, store.findSearch("  The MATRIX").orElseThrow().value());
+    }
+
+    @Test
+    void find_mongoDown_isAMiss() {
+        when(mongoTemplate.findById(anyString(), eq(OmdbResponse.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertTrue(store.findMovie("tt0133093").isEmpty());
+        assertEquals(1.0, meterRegistry.get("omdb.store.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void saveMovie_writesInBackground() {
+        store.saveMovie("tt0133093", matrix);
+
+        verify(mongoTemplate, timeout(5000)).save(argThat((OmdbResponse response) ->
+                response.id().equals("movie:tt0133093") && response.movie().equals(matrix)
+                        && response.fetchedAt() != null));
+    }
+
+    @Test
+    void save_errorAnswers_areNotStored() throws InterruptedException {
+        store.saveMovie("tt0000000", new MovieDetails(null, null, null, null, null, null, null, null, null, null));
+        store.saveSearch("nothing", new SearchResponse(null, null, "False"));
+        store.shutdown();
+
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    void disabled_neitherReadsNorWrites() throws InterruptedException {
+        store = new OmdbStore(mongoTemplate, false, 10, meterRegistry);
+
+        assertTrue(store.findSearch("Matrix").isEmpty());
+        store.saveSearch("Matrix", matrixSearch);
+        store.shutdown();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
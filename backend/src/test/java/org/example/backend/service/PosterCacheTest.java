@@ -0,0 +1,96 @@
+package org.example.backend.service;
+
+import org.example.backend.model.CachedPoster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PosterCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private PosterFetcher posterFetcher;
+
+    @BeforeEach
+    void setUp() {
+        posterFetcher = mock(PosterFetcher.class);
+    }
+
+    private static PosterFetcher.Download image(int size, int fill) {
+        byte[] bytes = new byte[size];
+        java.util.Arrays.fill(bytes, (byte) fill);
+        return new PosterFetcher.Download(bytes, "image/jpeg");
+    }
+
+    @Test
+    void get_fetchesOnceAndServesFromDisk() throws IOException {
+        PosterCache cache = new PosterCache(posterFetcher, directory, 1000);
+        when(posterFetcher.fetch("https://example.com/a.jpg")).thenReturn(image(100, 1));
+
+        CachedPoster first = cache.get("https://example.com/a.jpg").orElseThrow();
+        CachedPoster second = cache.get("https://example.com/a.jpg").orElseThrow();
+
+        assertEquals(first, second);
+        assertEquals(100, Files.size(first.file()));
+        assertEquals("image/jpeg", first.contentType());
+        verify(posterFetcher, times(1)).fetch("https://example.com/a.jpg");
+    }
+
+    @Test
+    void get_sameContentFromTwoUrls_storesOneFile() throws IOException {
+        PosterCache cache = new PosterCache(posterFetcher, directory, 1000);
+        when(posterFetcher.fetch(anyString())).thenReturn(image(100, 1));
+
+        CachedPoster a = cache.get("https://example.com/a.jpg").orElseThrow();
+        CachedPoster b = cache.get("https://example.com/b.jpg").orElseThrow();
+
+        assertEquals(a.file(), b.file());
+        assertEquals(100, cache.totalBytes());
+    }
+
+    @Test
+    void get_overBudget_evictsLeastRecentlyUsed() throws IOException {
+        PosterCache cache = new PosterCache(posterFetcher, directory, 250);
+        when(posterFetcher.fetch("https://example.com/a.jpg")).thenReturn(image(100, 1));
+        when(posterFetcher.fetch("https://example.com/b.jpg")).thenReturn(image(100, 2));
+        when(posterFetcher.fetch("https://example.com/c.jpg")).thenReturn(image(100, 3));
+
+        CachedPoster a = cache.get("https://example.com/a.jpg").orElseThrow();
+        CachedPoster b = cache.get("https://example.com/b.jpg").orElseThrow();
+        cache.get("https://example.com/a.jpg");
+        cache.get("https://example.com/c.jpg");
+
+        assertEquals(200, cache.totalBytes());
+        assertTrue(Files.exists(a.file()));
+        assertFalse(Files.exists(b.file()));
+    }
+
+    @Test
+    void get_fetchFails_returnsEmpty() throws IOException {
+        PosterCache cache = new PosterCache(posterFetcher, directory, 1000);
+        when(posterFetcher.fetch(anyString())).thenThrow(new IOException("Not an image"));
+
+        assertEquals(Optional.empty(), cache.get("https://example.com/a.jpg"));
+    }
+
+    @Test
+    void constructor_restoresCacheFromDisk() throws IOException {
+        when(posterFetcher.fetch("https://example.com/a.jpg")).thenReturn(image(100, 1));
+        new PosterCache(posterFetcher, directory, 1000).get("https://example.com/a.jpg");
+
+        PosterCache restarted = new PosterCache(posterFetcher, directory, 1000);
+
+        assertTrue(restarted.get("https://example.com/a.jpg").isPresent());
+        assertEquals(100, restarted.totalBytes());
+        verify(posterFetcher, times(1)).fetch("https://example.com/a.jpg");
+    }
+}
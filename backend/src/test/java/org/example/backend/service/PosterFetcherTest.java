@@ -0,0 +1,74 @@
+package org.example.backend.service;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PosterFetcherTest {
+
+    private static final URI POSTER = URI.create("https://example.com/poster.jpg");
+
+    private final PosterFetcher posterFetcher = new PosterFetcher(1024, "");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "file:///etc/passwd",
+            "ftp://example.com/poster.jpg",
+            "http://localhost/poster.jpg",
+            "http://127.0.0.1:8080/poster.jpg",
+            "http://10.0.0.5/poster.jpg",
+            "http://192.168.1.1/poster.jpg",
+            "http://169.254.169.254/latest/meta-data/",
+            "http://[::1]/poster.jpg",
+            "http://[fd00::1]/poster.jpg"
+    })
+    void fetch_internalOrNonHttpUrl_throwsException(String url) {
+        assertThrows(IOException.class, () -> posterFetcher.fetch(url));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"localhost", "127.0.0.1", "10.0.0.5", "[::1]", "fd00::1"})
+    void resolvePublic_internalAddress_isNotHandedToTheConnection(String host) {
+        assertThrows(UnknownHostException.class, () -> PosterFetcher.resolvePublic(host));
+    }
+
+    @Test
+    void checkAllowed_hostNotOnAllowList_throwsException() {
+        PosterFetcher restricted = new PosterFetcher(1024, "m.media-amazon.com");
+
+        assertThrows(IOException.class, () -> restricted.checkAllowed(URI.create("http://93.184.216.34/poster.jpg")));
+    }
+
+    @Test
+    void readBody_withinLimits_returnsTheBytes() throws IOException {
+        byte[] poster = new byte[1024];
+
+        assertArrayEquals(poster, posterFetcher.readBody(POSTER,
+                new ByteArrayEntity(poster, ContentType.IMAGE_JPEG), System.nanoTime() + 1_000_000_000L));
+    }
+
+    @Test
+    void readBody_overTheSizeCap_stopsReading() {
+        // no Content-Length to reject it up front
+        ByteArrayEntity entity = new ByteArrayEntity(new byte[1025], ContentType.IMAGE_JPEG, true);
+
+        assertThrows(IOException.class,
+                () -> posterFetcher.readBody(POSTER, entity, System.nanoTime() + 1_000_000_000L));
+    }
+
+    @Test
+    void readBody_pastTheDeadline_stopsReading() {
+        ByteArrayEntity entity = new ByteArrayEntity(new byte[10], ContentType.IMAGE_JPEG);
+
+        assertThrows(IOException.class, () -> posterFetcher.readBody(POSTER, entity, System.nanoTime() - 1));
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.model.CachedPoster;
+import org.example.backend.model.Film;
+import org.example.backend.model.FilmChangedEvent;
+import org.example.backend.model.GENRE;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PosterThumbnailsTest {
+
+    private static final String URL = "https://example.com/poster.png";
+
+    @TempDir
+    Path directory;
+
+    private PosterFetcher posterFetcher;
+    private FilmsService filmsService;
+    private PosterCache posterCache;
+    private PosterThumbnails thumbnails;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        posterFetcher = mock(PosterFetcher.class);
+        filmsService = mock(FilmsService.class);
+        posterCache = new PosterCache(posterFetcher, directory, 10_000_000);
+        thumbnails = new PosterThumbnails(posterCache, filmsService, 1, 10, 40_000_000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnails.shutdown();
+    }
+
+    private static PosterFetcher.Download png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new PosterFetcher.Download(out.toByteArray(), "image/png");
+    }
+
+    private static Film film(String poster) {
+        return new Film("1", "Inception", LocalDate.of(2010, 7, 16), 8.8, "Leonardo DiCaprio",
+                GENRE.SCI_FI, 148, poster, "description");
+    }
+
+    @Test
+    void generate_writesEveryWidthAndStoresPlaceholder() throws IOException {
+        when(posterFetcher.fetch(URL)).thenReturn(png(1000, 1500));
+
+        thumbnails.generate("1", URL);
+
+        CachedPoster poster = posterCache.get(URL).orElseThrow();
+        for (int width : PosterThumbnails.WIDTHS) {
+            Path variant = thumbnails.variant(poster, width).orElseThrow();
+            BufferedImage image = ImageIO.read(variant.toFile());
+            assertEquals(width, image.getWidth());
+            assertEquals(width * 3 / 2, image.getHeight());
+        }
+        verify(filmsService).setPosterPlaceholder(eq("1"), eq(URL), startsWith("data:image/png;base64,"));
+    }
+
+    @Test
+    void generate_narrowPoster_isNotUpscaled() throws IOException {
+        when(posterFetcher.fetch(URL)).thenReturn(png(200, 300));
+
+        thumbnails.generate("1", URL);
+
+        CachedPoster poster = posterCache.get(URL).orElseThrow();
+        Path widest = thumbnails.variant(poster, 640).orElseThrow();
+        assertEquals(200, ImageIO.read(widest.toFile()).getWidth());
+    }
+
+    @Test
+    void generate_unreadableImage_storesNothing() throws IOException {
+        when(posterFetcher.fetch(URL)).thenReturn(new PosterFetcher.Download(new byte[]{1, 2, 3}, "image/webp"));
+
+        thumbnails.generate("1", URL);
+
+        CachedPoster poster = posterCache.get(URL).orElseThrow();
+        assertTrue(thumbnails.variant(poster, 160).isEmpty());
+        verifyNoInteractions(filmsService);
+    }
+
+    @Test
+    void generate_posterOverPixelLimit_isNotDecoded() throws IOException {
+        thumbnails.shutdown();
+        thumbnails = new PosterThumbnails(posterCache, filmsService, 1, 10, 100 * 100, new SimpleMeterRegistry());
+        when(posterFetcher.fetch(URL)).thenReturn(png(101, 100));
+
+        thumbnails.generate("1", URL);
+
+        CachedPoster poster = posterCache.get(URL).orElseThrow();
+        assertTrue(thumbnails.variant(poster, 160).isEmpty());
+        verifyNoInteractions(filmsService);
+    }
+
+    @Test
+    void read_widePoster_isSubsampledToTheWidestVariant() throws IOException {
+        when(posterFetcher.fetch(URL)).thenReturn(png(2000, 3000));
+        CachedPoster poster = posterCache.get(URL).orElseThrow();
+
+        BufferedImage image = thumbnails.read(poster.file());
+
+        assertTrue(image.getWidth() >= 640 && image.getWidth() < 1280, "width " + image.getWidth());
+    }
+
+    @Test
+    void placeholder_staysSmall() throws IOException {
+        String placeholder = PosterThumbnails.placeholder(new BufferedImage(1000, 1500, BufferedImage.TYPE_INT_RGB));
+
+        assertTrue(placeholder.length() < 1024, placeholder);
+    }
+
+    @Test
+    void variantWidth_picksSmallestWideEnough() {
+        assertEquals(160, PosterThumbnails.variantWidth(100));
+        assertEquals(320, PosterThumbnails.variantWidth(161));
+        assertEquals(640, PosterThumbnails.variantWidth(2000));
+        assertThrows(IllegalArgumentException.class, () -> PosterThumbnails.variantWidth(0));
+    }
+
+    @Test
+    void onFilmChanged_newPoster_generatesInBackground() throws IOException {
+        when(posterFetcher.fetch(URL)).thenReturn(png(400, 600));
+
+        thumbnails.onFilmChanged(new FilmChangedEvent(null, film(URL)));
+
+        verify(filmsService, timeout(5000)).setPosterPlaceholder(eq("1"), eq(URL), anyString());
+    }
+
+    @Test
+    void onFilmChanged_samePosterOrNone_isIgnored() throws IOException {
+        thumbnails.onFilmChanged(new FilmChangedEvent(film(URL), film(URL).withRate(9.0)));
+        thumbnails.onFilmChanged(new FilmChangedEvent(null, film("N/A")));
+        thumbnails.onFilmChanged(new FilmChangedEvent(film(URL), null));
+
+        thumbnails.shutdown();
+        verify(posterFetcher, never()).fetch(anyString());
+    }
+}
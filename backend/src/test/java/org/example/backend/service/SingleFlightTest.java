@@ -0,0 +1,108 @@
+package org.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    // the first caller blocks inside the call until released; the others join it meanwhile
+    private List<Future<String>> callConcurrently(String key, int callers, Supplier<String> result,
+                                                  ExecutorService executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> call = () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        };
+
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> flights.execute(key, call)));
+        started.await();
+        for (int i = 1; i < callers; i++) {
+            futures.add(executor.submit(() -> flights.execute(key, call)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        return futures;
+    }
+
+    @Test
+    void execute_concurrentCallers_shareOneCall() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<String>> futures = callConcurrently("matrix", 8, () -> "The Matrix", executor);
+
+            for (Future<String> future : futures) {
+                assertEquals("The Matrix", future.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void execute_failure_isSharedWithWaitingCallers() throws Exception {
+        IllegalStateException failure = new IllegalStateException("OMDb unavailable");
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<String>> futures = callConcurrently("matrix", 4, () -> {
+                throw failure;
+            }, executor);
+
+            for (Future<String> future : futures) {
+                ExecutionException thrown = assertThrows(ExecutionException.class,
+                        () -> future.get(5, TimeUnit.SECONDS));
+                assertSame(failure, thrown.getCause());
+            }
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_afterCompletion_callsAgain() {
+        assertEquals("1", flights.execute("matrix", () -> String.valueOf(calls.incrementAndGet())));
+        assertEquals("2", flights.execute("matrix", () -> String.valueOf(calls.incrementAndGet())));
+        assertThrows(IllegalArgumentException.class, () -> flights.execute("matrix", () -> {
+            throw new IllegalArgumentException();
+        }));
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void execute_differentKeys_doNotWaitForEachOther() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> slow = executor.submit(() -> flights.execute("slow", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+
+            assertEquals("fast", flights.execute("fast", () -> "fast"));
+            release.countDown();
+            assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+        }
+    }
+}